@@ -0,0 +1,14 @@
+package bench;
+
+import java.util.Arrays;
+
+// runs the benchmarks with the gc profiler so allocation rates are reported next to the timings.
+// arguments are passed on to jmh, e.g. java -jar target/benchmarks.jar ColonyBenchmark -p ants=64
+public class BenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        String[] withProfiler = Arrays.copyOf(args, args.length + 2);
+        withProfiler[args.length] = "-prof";
+        withProfiler[args.length + 1] = "gc";
+        org.openjdk.jmh.Main.main(withProfiler);
+    }
+}
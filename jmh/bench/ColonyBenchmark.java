@@ -0,0 +1,81 @@
+package bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.Colony;
+import core.Colony.Parameters;
+import core.Rng;
+import core.ShortestPaths;
+import core.SolveLimits;
+import core.Utils.Metric;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColonyBenchmark {
+
+    @Param({ "brandeis", "grid:400", "campus:400" })
+    public String graph;
+
+    @Param({ "64", "1024" })
+    public int ants;
+
+    @Param({ "true" })
+    public boolean multithreaded;
+
+    private ShortestPaths shortestPaths;
+    private Colony colony;
+    private Colony.Ant ant;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        shortestPaths = new ShortestPaths(Graphs.load(graph), Metric.WALK_DISTANCE);
+        Parameters parameters = new Parameters(Metric.WALK_DISTANCE, 1f, 0.8f, 0.1f, 3f, 3f, 2).withSeed(1);
+        colony = new Colony(shortestPaths, parameters);
+        colony.setVerbose(false);
+        colony.addAnts(ants);
+        ant = colony.new Ant(new Rng(1));
+
+        colony.learn(SolveLimits.iterations(1), multithreaded, null, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        colony.close();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int wander() {
+        ant.wander();
+        return ant.getLength();
+    }
+
+    @Benchmark
+    public void updatePheromones() {
+        colony.updatePheromones();
+    }
+
+    @Benchmark
+    public Colony.Tour learnIteration() {
+        return colony.learn(SolveLimits.iterations(1), multithreaded, null, 1);
+    }
+}
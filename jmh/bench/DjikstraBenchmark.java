@@ -0,0 +1,77 @@
+package bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.Digraph;
+import core.Digraph.Path;
+import core.Digraph.Vertex;
+import core.CsrGraph;
+import core.Djikstra;
+import core.IndexedDjikstra;
+import core.Rng;
+import core.ShortestPaths;
+import core.Utils.Metric;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DjikstraBenchmark {
+
+    @Param({ "brandeis", "grid:1000", "geometric:1000", "campus:1000" })
+    public String graph;
+
+    @Param({ "WALK_DISTANCE", "SKATE_TIME" })
+    public Metric metric;
+
+    @Param({ "DJIKSTRA", "INDEXED_HEAP" })
+    public ShortestPaths.Engine engine;
+
+    private Digraph dg;
+    private CsrGraph csr;
+    private Djikstra dj;
+    private IndexedDjikstra indexed;
+    private Vertex[] vertices;
+    private Rng rng;
+
+    @Setup
+    public void setup() throws IOException {
+        dg = Graphs.load(graph);
+        csr = new CsrGraph(dg);
+        dj = new Djikstra(csr);
+        indexed = new IndexedDjikstra(csr);
+        vertices = dg.vertexSet().toArray(new Vertex[0]);
+        rng = new Rng(1);
+    }
+
+    @Benchmark
+    public Path singlePair() {
+        Vertex start = vertices[rng.nextInt(vertices.length)];
+        Vertex finish = vertices[rng.nextInt(vertices.length)];
+        if (engine == ShortestPaths.Engine.DJIKSTRA) {
+            return dj.shortestPath(start, finish, metric);
+        }
+        return indexed.shortestPath(start, finish, metric);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public ShortestPaths allPairs() {
+        return new ShortestPaths(csr, metric, engine);
+    }
+}
@@ -0,0 +1,53 @@
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.Digraph;
+import core.GraphBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBuilderBenchmark {
+
+    @Param({ "brandeis", "grid:1000", "geometric:1000", "campus:1000" })
+    public String graph;
+
+    private File[] files;
+    private File binary;
+
+    @Setup
+    public void setup() throws IOException {
+        files = Graphs.files(graph);
+        binary = File.createTempFile("graph", ".bin");
+        binary.deleteOnExit();
+        GraphBuilder.writeBinary(GraphBuilder.buildGraphFromFiles(files[0], files[1], false), binary);
+    }
+
+    @Benchmark
+    public Digraph buildGraphFromFiles() throws IOException {
+        return GraphBuilder.buildGraphFromFiles(files[0], files[1], false);
+    }
+
+    @Benchmark
+    public Digraph buildGraphFromBinary() throws IOException {
+        return GraphBuilder.buildGraphFromBinary(binary);
+    }
+}
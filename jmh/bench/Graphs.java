@@ -0,0 +1,47 @@
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+
+import core.Digraph;
+import core.GraphBuilder;
+import core.GraphGenerator;
+
+// graphs for the benchmarks: "brandeis" is the campus map in mapdata, "grid:N", "geometric:N" and
+// "campus:N" are generated graphs of about N vertices, written to temporary files in the GraphBuilder format
+public class Graphs {
+
+    public static final File BRANDEIS_VERTICES = new File("mapdata/vertices.txt");
+    public static final File BRANDEIS_EDGES = new File("mapdata/edges.txt");
+
+    public static File[] files(String graph) throws IOException {
+        if (graph.equals("brandeis")) {
+            return new File[] { BRANDEIS_VERTICES, BRANDEIS_EDGES };
+        }
+        File vertexFile = File.createTempFile("vertices", ".txt");
+        File edgeFile = File.createTempFile("edges", ".txt");
+        vertexFile.deleteOnExit();
+        edgeFile.deleteOnExit();
+        GraphGenerator.writeFiles(generate(graph), vertexFile, edgeFile);
+        return new File[] { vertexFile, edgeFile };
+    }
+
+    public static Digraph load(String graph) throws IOException {
+        if (graph.equals("brandeis")) {
+            return GraphBuilder.buildGraphFromFiles(BRANDEIS_VERTICES, BRANDEIS_EDGES, false);
+        }
+        return generate(graph);
+    }
+
+    private static Digraph generate(String graph) {
+        String[] kindAndSize = graph.split(":");
+        int size = Integer.parseInt(kindAndSize[1]);
+        GraphGenerator generator = new GraphGenerator(size);
+        switch (kindAndSize[0]) {
+            case "grid":      return generator.grid(size);
+            case "geometric": return generator.randomGeometric(size, 6);
+            case "campus":    return generator.campus(size, 40);
+            default: throw new IllegalArgumentException("unknown graph " + graph);
+        }
+    }
+}
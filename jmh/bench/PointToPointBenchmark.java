@@ -0,0 +1,57 @@
+package bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.CsrGraph;
+import core.IndexedDjikstra;
+import core.Rng;
+import core.Utils.Metric;
+
+// single pair queries with every search mode of the indexed djikstra
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PointToPointBenchmark {
+
+    @Param({ "brandeis", "grid:10000", "geometric:10000", "campus:10000" })
+    public String graph;
+
+    @Param({ "WALK_DISTANCE", "SKATE_TIME" })
+    public Metric metric;
+
+    @Param({ "DJIKSTRA", "A_STAR", "BIDIRECTIONAL" })
+    public IndexedDjikstra.Mode mode;
+
+    private CsrGraph csr;
+    private IndexedDjikstra dj;
+    private Rng rng;
+
+    @Setup
+    public void setup() throws IOException {
+        csr = new CsrGraph(Graphs.load(graph));
+        dj = new IndexedDjikstra(csr);
+        rng = new Rng(1);
+    }
+
+    @Benchmark
+    public int search() {
+        int n = csr.numVertices();
+        return dj.search(rng.nextInt(n), rng.nextInt(n), metric, mode);
+    }
+}
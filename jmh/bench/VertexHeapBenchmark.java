@@ -0,0 +1,68 @@
+package bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import core.Digraph.Vertex;
+import core.Rng;
+import core.VertexHeap;
+
+// inserts every vertex, lowers half of the scores and pops everything again
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VertexHeapBenchmark {
+
+    @Param({ "172", "1600", "10000" })
+    public int size;
+
+    private Vertex[] vertices;
+    private int[] scores;
+    private int[] lowered;
+
+    @Setup
+    public void setup() {
+        Rng rng = new Rng(size);
+        vertices = new Vertex[size];
+        scores = new int[size];
+        lowered = new int[size];
+        for (int i = 0; i < size; i++) {
+            vertices[i] = new Vertex("v" + i, i, "V" + i, 0, 0);
+            scores[i] = rng.nextInt(1_000_000);
+            lowered[i] = rng.nextInt(scores[i] + 1);
+        }
+    }
+
+    @Benchmark
+    public void insertUpdatePop(Blackhole bh) {
+        Map<Vertex, Integer> vertexScores = new HashMap<>();
+        VertexHeap heap = new VertexHeap(vertexScores);
+        for (int i = 0; i < size; i++) {
+            vertexScores.put(vertices[i], scores[i]);
+            heap.insert(vertices[i]);
+        }
+        for (int i = 0; i < size; i += 2) {
+            heap.updateIfSmaller(vertices[i], lowered[i]);
+        }
+        while (!heap.isEmpty()) {
+            bh.consume(heap.popMin());
+        }
+    }
+}
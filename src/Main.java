@@ -2,8 +2,11 @@ import java.io.File;
 
 import core.Colony;
 import core.Colony.Parameters;
+import core.Colony.Tour;
 import core.Digraph;
 import core.GraphBuilder;
+import core.ShortestPathCache;
+import core.ShortestPaths;
 import core.Utils;
 import core.Utils.Metric;
 import disp.Display;
@@ -12,13 +15,18 @@ public class Main {
     public static void main(String[] args) throws Exception {
         Utils.startTimer();
         
-        Digraph dg = GraphBuilder.buildGraphFromFiles(new File("mapdata/vertices.txt"), new File("mapdata/edges.txt"), false);
+        File vertexFile = new File("mapdata/vertices.txt");
+        File edgeFile = new File("mapdata/edges.txt");
+        Digraph dg = GraphBuilder.buildGraphFromFiles(vertexFile, edgeFile, false);
         
         Parameters parameters = new Parameters(Metric.WALK_DISTANCE, 1f, 0.8f, 0.1f,3f,3f, 2);
-        Colony colony = new Colony(dg, parameters);
-        colony.addAnts(1024);
-        colony.learn(20, true, new Display(), 1);
-        
-        Utils.exportRoute(colony.bestPath());
+        ShortestPaths shortestPaths = ShortestPathCache.load(dg, parameters.metric(), vertexFile, edgeFile, false, new File("cache"));
+        try (Colony colony = new Colony(shortestPaths, parameters); Display display = Display.open(new File("output/frames"))) {
+            colony.addAnts(1024);
+            colony.learn(20, true, display, 1);
+            
+            Tour best = colony.getBestTour();
+            Utils.exportRoute(best.graph(), best.getPathEdges());
+        }
     }
 }
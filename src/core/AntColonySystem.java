@@ -0,0 +1,72 @@
+package core;
+
+// ant colony system: with probability q0 an ant greedily takes the most desirable vertex, every move
+// pulls the pheromone of the used leg back towards tau0, and only the best tour so far updates the
+// pheromones globally. the local update races between ant threads, so multithreaded runs with this
+// strategy are not reproducible from the seed
+public class AntColonySystem extends Strategy {
+
+    private final float q0;
+    private final float xi;
+    private final float tau0;
+
+    public AntColonySystem() {
+        this(0.9f, 0.1f, 0.1f);
+    }
+
+    public AntColonySystem(float q0, float xi, float tau0) {
+        this.q0 = q0;
+        this.xi = xi;
+        this.tau0 = tau0;
+    }
+
+    @Override
+    public float[] settings() {
+        return new float[] { q0, xi, tau0 };
+    }
+
+    @Override
+    public Strategy withSettings(float[] settings) {
+        return new AntColonySystem(settings[0], settings[1], settings[2]);
+    }
+
+    @Override
+    public float initialPheromone(Colony colony) {
+        return tau0;
+    }
+
+    @Override
+    public int chooseNextVertex(Colony colony, Colony.Ant ant, int currentVertex) {
+        if (ant.random() < q0) {
+            return ant.greedyChoice(currentVertex);
+        }
+        return ant.rouletteChoice(currentVertex);
+    }
+
+    // both directions, like the global deposit (in half storage they are the same entry)
+    @Override
+    public void afterMove(Colony colony, int a, int b) {
+        colony.setPheromones(a, b, (1f - xi) * colony.getPheromones(a, b) + xi * tau0);
+        if (!colony.getParameters().halfPheromones()) {
+            colony.setPheromones(b, a, (1f - xi) * colony.getPheromones(b, a) + xi * tau0);
+        }
+    }
+
+    // only the legs of the best tour so far change in the global update
+    @Override
+    public void evaporate(Colony colony, float[] pheromones, int from, int to) {}
+
+    @Override
+    public float depositAmounts(Colony colony, int[] lengths, int numTours, int bestLength, float[] amounts) {
+        for (int i = 0; i < numTours; i++) {
+            amounts[i] = 0f;
+        }
+        return 1f;
+    }
+
+    @Override
+    public float deposit(Colony colony, float tau, float amount) {
+        float evaporation = 1f - colony.getParameters().rho();
+        return (1f - evaporation) * tau + evaporation * amount;
+    }
+}
@@ -0,0 +1,47 @@
+package core;
+
+// the original update rule: every ant deposits (best / length)^Q and evaporation never goes below a floor
+public class AntSystem extends Strategy {
+
+    private final float floor;
+
+    public AntSystem() {
+        this(0.5f);
+    }
+
+    public AntSystem(float floor) {
+        this.floor = floor;
+    }
+
+    @Override
+    public float[] settings() {
+        return new float[] { floor };
+    }
+
+    @Override
+    public Strategy withSettings(float[] settings) {
+        return new AntSystem(settings[0]);
+    }
+
+    @Override
+    public float initialPheromone(Colony colony) {
+        return 1f;
+    }
+
+    @Override
+    public void evaporate(Colony colony, float[] pheromones, int from, int to) {
+        float rho = colony.getParameters().rho();
+        for (int i = from; i < to; i++) {
+            pheromones[i] = Math.max(floor, rho * pheromones[i]);
+        }
+    }
+
+    @Override
+    public float depositAmounts(Colony colony, int[] lengths, int numTours, int bestLength, float[] amounts) {
+        float Q = colony.getParameters().Q();
+        for (int i = 0; i < numTours; i++) {
+            amounts[i] = (float)Math.pow(lengths[0] / (float)lengths[i], Q);
+        }
+        return 0f;
+    }
+}
@@ -0,0 +1,14 @@
+package core;
+
+// lets another thread ask a running solve to stop after its current iteration
+public class CancellationToken {
+    private volatile boolean cancelled;
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
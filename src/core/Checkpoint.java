@@ -0,0 +1,235 @@
+package core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import core.Colony.Parameters;
+import core.Utils.Metric;
+
+// snapshot of everything a colony needs to continue exactly where it stopped: parameters, iteration,
+// generator states, the elite tours that skip the next wander, the best tour and the pheromones.
+// taken by Colony.checkpoint between iterations, immutable afterwards.
+//
+// file layout, big endian: magic, version, n, number of edges, parameters, iteration, colony seed
+// and gamma, number of ants, seed and gamma of every ant, number of elite tours, the elite tours,
+// whether there is a best tour and the best tour, number of pheromones, pheromones. a tour is its
+// length, iteration, number of key vertices and key vertices. parameters are written as their
+// scalars, the class name and settings of the strategy (-1 settings if it has none that can be saved)
+// and the settings of the local search. the shortest path engine isn't saved, both engines give the
+// same matrices and a colony is resumed on shortest paths it is handed
+public class Checkpoint {
+
+    private static final int MAGIC = 0x414e5443; // "ANTC"
+    private static final int VERSION = 3; // 1 lost the settings of the strategy, 2 saved the engine
+
+    final Parameters parameters;
+    final String strategyClass;
+    final int n;
+    final int numEdges;
+    final int iteration;
+    final long seed, gamma;
+    final long[] antSeeds, antGammas;
+    final int[][] eliteTours;
+    final int[] eliteLengths;
+    final int[] bestTour; // null if there is none yet
+    final int bestLength, bestIteration;
+    final float[] pheromones;
+
+    Checkpoint(Parameters parameters, String strategyClass, int n, int numEdges, int iteration, long seed, long gamma,
+               long[] antSeeds, long[] antGammas, int[][] eliteTours, int[] eliteLengths, int[] bestTour, int bestLength,
+               int bestIteration, float[] pheromones) {
+        this.parameters = parameters;
+        this.strategyClass = strategyClass;
+        this.n = n;
+        this.numEdges = numEdges;
+        this.iteration = iteration;
+        this.seed = seed;
+        this.gamma = gamma;
+        this.antSeeds = antSeeds;
+        this.antGammas = antGammas;
+        this.eliteTours = eliteTours;
+        this.eliteLengths = eliteLengths;
+        this.bestTour = bestTour;
+        this.bestLength = bestLength;
+        this.bestIteration = bestIteration;
+        this.pheromones = pheromones;
+    }
+
+    // the saved parameters, with the strategy recreated from its settings. null if it can't be, see
+    // Strategy.settings, in which case the colony has to be resumed with parameters of its own
+    public Parameters getParameters() { return parameters; }
+    public String getStrategyClass() { return strategyClass; }
+    public int getIteration() { return iteration; }
+    public int getBestLength() { return bestTour == null ? Integer.MAX_VALUE : bestLength; }
+
+    // writes to a temporary file next to file first, so a crash never leaves half a checkpoint behind
+    public void write(File file) throws IOException {
+        byte[] strategyName = strategyClass.getBytes(StandardCharsets.UTF_8);
+        float[] settings = parameters.strategy().settings();
+        long size = 4L * Integer.BYTES                         // magic, version, n, edges
+                + 10L * Integer.BYTES + 1 + Long.BYTES         // scalar parameters
+                + Integer.BYTES + strategyName.length          // strategy
+                + Integer.BYTES + (settings == null ? 0L : (long) Float.BYTES * settings.length)
+                + 3L * Integer.BYTES                           // local search
+                + Integer.BYTES + 2L * Long.BYTES              // iteration, colony generator
+                + Integer.BYTES + 2L * Long.BYTES * antSeeds.length
+                + Integer.BYTES + 1 + Integer.BYTES + (long) Float.BYTES * pheromones.length;
+        for (int[] tour : eliteTours) {
+            size += 3L * Integer.BYTES + (long) Integer.BYTES * tour.length;
+        }
+        if (bestTour != null) {
+            size += 3L * Integer.BYTES + (long) Integer.BYTES * bestTour.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(numEdges);
+        Parameters p = parameters;
+        buffer.putInt(p.metric().ordinal()).putFloat(p.Q()).putFloat(p.rho()).putFloat(p.temperature()).putFloat(p.alpha())
+                .putFloat(p.beta()).putInt(p.best()).put((byte) (p.halfPheromones() ? 1 : 0)).putInt(p.executor().ordinal())
+                .putInt(p.threads()).putInt(p.chunkSize()).putLong(p.seed());
+        buffer.putInt(strategyName.length).put(strategyName);
+        buffer.putInt(settings == null ? -1 : settings.length);
+        for (int i = 0; settings != null && i < settings.length; i++) {
+            buffer.putFloat(settings[i]);
+        }
+        LocalSearch ls = p.localSearch();
+        buffer.putInt(ls == null ? -1 : ls.neighbors()).putInt(ls == null ? -1 : ls.topK()).putInt(ls == null ? -1 : ls.maxPasses());
+
+        buffer.putInt(iteration).putLong(seed).putLong(gamma);
+        buffer.putInt(antSeeds.length);
+        for (int i = 0; i < antSeeds.length; i++) {
+            buffer.putLong(antSeeds[i]).putLong(antGammas[i]);
+        }
+        buffer.putInt(eliteTours.length);
+        for (int i = 0; i < eliteTours.length; i++) {
+            putTour(buffer, eliteTours[i], eliteLengths[i], iteration);
+        }
+        buffer.put((byte) (bestTour == null ? 0 : 1));
+        if (bestTour != null) {
+            putTour(buffer, bestTour, bestLength, bestIteration);
+        }
+        buffer.putInt(pheromones.length);
+        buffer.asFloatBuffer().put(pheromones);
+        buffer.rewind();
+
+        Path target = file.toPath().toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void putTour(ByteBuffer buffer, int[] tour, int length, int iteration) {
+        buffer.putInt(length).putInt(iteration).putInt(tour.length);
+        buffer.asIntBuffer().put(tour);
+        buffer.position(buffer.position() + tour.length * Integer.BYTES);
+    }
+
+    private static int[] getTour(ByteBuffer buffer, int[] lengthAndIteration) {
+        lengthAndIteration[0] = buffer.getInt();
+        lengthAndIteration[1] = buffer.getInt();
+        int[] tour = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(tour);
+        buffer.position(buffer.position() + tour.length * Integer.BYTES);
+        return tour;
+    }
+
+    public static Checkpoint read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(file + " is not a colony checkpoint");
+            }
+            int n = buffer.getInt();
+            int numEdges = buffer.getInt();
+
+            Metric metric = Metric.values()[buffer.getInt()];
+            float Q = buffer.getFloat();
+            float rho = buffer.getFloat();
+            float temperature = buffer.getFloat();
+            float alpha = buffer.getFloat();
+            float beta = buffer.getFloat();
+            int best = buffer.getInt();
+            boolean halfPheromones = buffer.get() != 0;
+            Workers.Type executor = Workers.Type.values()[buffer.getInt()];
+            int threads = buffer.getInt();
+            int chunkSize = buffer.getInt();
+            long parameterSeed = buffer.getLong();
+            byte[] strategyName = new byte[buffer.getInt()];
+            buffer.get(strategyName);
+            String strategyClass = new String(strategyName, StandardCharsets.UTF_8);
+            int numSettings = buffer.getInt();
+            float[] settings = numSettings < 0 ? null : new float[numSettings];
+            for (int i = 0; i < numSettings; i++) {
+                settings[i] = buffer.getFloat();
+            }
+            int neighbors = buffer.getInt();
+            int topK = buffer.getInt();
+            int maxPasses = buffer.getInt();
+
+            Strategy strategy = newStrategy(strategyClass, settings);
+            Parameters parameters = strategy == null ? null
+                    : new Parameters(metric, Q, rho, temperature, alpha, beta, best, halfPheromones, executor, threads, chunkSize,
+                            parameterSeed, strategy, neighbors < 0 ? null : new LocalSearch(neighbors, topK, maxPasses),
+                            ShortestPaths.Engine.INDEXED_HEAP);
+
+            int iteration = buffer.getInt();
+            long seed = buffer.getLong();
+            long gamma = buffer.getLong();
+            int numAnts = buffer.getInt();
+            long[] antSeeds = new long[numAnts];
+            long[] antGammas = new long[numAnts];
+            for (int i = 0; i < numAnts; i++) {
+                antSeeds[i] = buffer.getLong();
+                antGammas[i] = buffer.getLong();
+            }
+            int[] lengthAndIteration = new int[2];
+            int[][] eliteTours = new int[buffer.getInt()][];
+            int[] eliteLengths = new int[eliteTours.length];
+            for (int i = 0; i < eliteTours.length; i++) {
+                eliteTours[i] = getTour(buffer, lengthAndIteration);
+                eliteLengths[i] = lengthAndIteration[0];
+            }
+            int[] bestTour = null;
+            if (buffer.get() != 0) {
+                bestTour = getTour(buffer, lengthAndIteration);
+            }
+            float[] pheromones = new float[buffer.getInt()];
+            buffer.asFloatBuffer().get(pheromones);
+
+            return new Checkpoint(parameters, strategyClass, n, numEdges, iteration, seed, gamma, antSeeds, antGammas, eliteTours,
+                    eliteLengths, bestTour, lengthAndIteration[0], lengthAndIteration[1], pheromones);
+        }
+    }
+
+    // null unless the strategy saved its settings and can be built from them
+    private static Strategy newStrategy(String className, float[] settings) {
+        if (settings == null) {
+            return null;
+        }
+        try {
+            Class<?> type = Class.forName(className);
+            Strategy strategy = ((Strategy) type.getDeclaredConstructor().newInstance()).withSettings(settings);
+            // a subclass that inherits settings from its parent would come back as the parent
+            return strategy.getClass() == type ? strategy : null;
+        } catch (ReflectiveOperationException | ClassCastException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
@@ -2,57 +2,110 @@ package core;
 
 import static core.Digraph.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
 
 import core.Utils.Metric;
 import disp.Display;
 
-public class Colony {
+public class Colony implements AutoCloseable {
     public class Ant {
-        private List<Edge> pathEdges = new ArrayList<Edge>();
-        private Set<Vertex> unvisitedVertices;
-        private List<Vertex> keyVertices = new ArrayList<Vertex>();
-
+        private final Rng rng;
+        // unvisited vertices are kept densely in candidates[0..numUnvisited), slots maps a vertex to its
+        // position there (-1 once visited) so removal is a constant time swap with the last candidate
+        private int[] candidates = new int[n];
+        private int[] slots = new int[n];
+        private int numUnvisited;
+        private long[] unvisitedBits = new long[words];
+        // running sum of the candidates' scores, reused on every step
+        private float[] prefixScores = new float[n];
+        private int[] keyVertices = new int[n + 1];
+        private int numKeyVertices;
+
+        private int length;
         private Path path;
 
-        public void wander(Vertex start) {
-            pathEdges.clear();
-            unvisitedVertices = dg.vertexSet();
-            unvisitedVertices.remove(start);
-            keyVertices.clear();
-            keyVertices.add(start);
+        public Ant(Rng rng) {
+            this.rng = rng;
+        }
+
+        public void wander() {
+            wander(rng.nextInt(n));
+        }
 
-            Vertex currentVertex = start;
-            Vertex nextVertex;
+        public void wander(int start) {
+            for (int v = 0; v < n; v++) {
+                candidates[v] = v;
+                slots[v] = v;
+            }
+            numUnvisited = n;
+            Arrays.fill(unvisitedBits, -1L);
+            visit(start);
+            numKeyVertices = 0;
+            keyVertices[numKeyVertices++] = start;
+            length = 0;
+            path = null;
+
+            int currentVertex = start;
+            int nextVertex;
             do {
                 // make an informed choice of the next vertex
-                if (unvisitedVertices.isEmpty()) {
+                if (numUnvisited == 0) {
                     nextVertex = start;
                 } else {
-                    nextVertex = chooseNextVertex(currentVertex);
+                    nextVertex = parameters.strategy.chooseNextVertex(Colony.this, this, currentVertex);
                 }
+                parameters.strategy.afterMove(Colony.this, currentVertex, nextVertex);
 
-                keyVertices.add(nextVertex);
-                Path p = getPrecomputedPath(currentVertex, nextVertex);
-                for (Edge e : p.edges) {
-                    unvisitedVertices.remove(e.getDst());
-                    pathEdges.add(e);
+                keyVertices[numKeyVertices++] = nextVertex;
+                length += getCost(currentVertex, nextVertex);
+                for (int v = nextVertex; v != currentVertex; v = shortestPaths.predecessor(currentVertex, v)) {
+                    visit(v);
                 }
 
                 currentVertex = nextVertex;
             } while (nextVertex != start);
+        }
 
-            path = new Path(pathEdges);
+        private boolean isUnvisited(int v) {
+            return slots[v] >= 0;
         }
 
-        private int numNewVertices(Path p) {
+        private void visit(int v) {
+            int slot = slots[v];
+            if (slot >= 0) {
+                int last = candidates[--numUnvisited];
+                candidates[slot] = last;
+                slots[last] = slot;
+                slots[v] = -1;
+                unvisitedBits[v >>> 6] &= ~(1L << v);
+            }
+        }
+
+        // vertices on the shortest path from a to b that haven't been visited yet
+        private int numNewVertices(int a, int b) {
+            if (pathBits != null) {
+                int total = 0;
+                int offset = (a * n + b) * words;
+                for (int w = 0; w < words; w++) {
+                    total += Long.bitCount(pathBits[offset + w] & unvisitedBits[w]);
+                }
+                return total;
+            }
             int total = 0;
-            for (Vertex v : p.vertices()) {
-                if (unvisitedVertices.contains(v)) {
+            for (int v = b; v != a; v = shortestPaths.predecessor(a, v)) {
+                if (isUnvisited(v)) {
                     total++;
                 }
             }
@@ -61,169 +114,822 @@ public class Colony {
 
         // tau is the pheremone value
         // eta is the average number of new vertices per 1000ft of the shortest path between a and b
-        private float desirability(Vertex a, Vertex b) {
+        private float desirability(int a, int b) {
             float tau = getPheromones(a, b);
-            Path shortestPath = getPrecomputedPath(a, b);
-            float eta = 1000f * numNewVertices(shortestPath) / (float) shortestPath.getLength(parameters.metric);
+            float eta = 1000f * numNewVertices(a, b) / (float) getCost(a, b);
             return (float)(Math.pow(tau, parameters.alpha) * Math.pow(eta, parameters.beta));
         }
 
-        public List<Vertex> getKeyVertices() { return keyVertices; }
+        public List<Vertex> getKeyVertices() {
+            List<Vertex> list = new ArrayList<Vertex>(numKeyVertices);
+            for (int i = 0; i < numKeyVertices; i++) {
+                list.add(vertices[keyVertices[i]]);
+            }
+            return list;
+        }
+
+        public float random() {
+            return rng.nextFloat();
+        }
+
+        public int greedyChoice(int currentVertex) {
+            int best = candidates[0];
+            float bestScore = desirability(currentVertex, best);
+            for (int i = 1; i < numUnvisited; i++) {
+                float des = desirability(currentVertex, candidates[i]);
+                if (des > bestScore) {
+                    best = candidates[i];
+                    bestScore = des;
+                }
+            }
+            return best;
+        }
+
+        public int rouletteChoice(int currentVertex) {
+            float total = 0;
+            for (int i = 0; i < numUnvisited; i++) {
+                total += desirability(currentVertex, candidates[i]) + parameters.temperature;
+                prefixScores[i] = total;
+            }
+            // weighted random choice, binary search for the first running sum above the target
+            float target = total * rng.nextFloat();
+            int lo = 0;
+            int hi = numUnvisited - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (prefixScores[mid] > target) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            return candidates[lo];
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        private void improve(LocalSearch.Workspace ws) {
+            numKeyVertices = parameters.localSearch.improve(shortestPaths, neighborLists, keyVertices, numKeyVertices, ws);
+            length = tourLength(keyVertices, numKeyVertices);
+            path = null;
+        }
 
-        private Vertex chooseNextVertex(Vertex currentVertex) {
-            Vertex[] candidates = unvisitedVertices.toArray(new Vertex[0]);
-            Map<Vertex, Float> scores = new HashMap<>();
-            float target = 0;
-            for (Vertex v : candidates) {
-                float des = desirability(currentVertex, v) + parameters.temperature;
-                target += des;
-                scores.put(v, des);
+        // the full edge sequence is only rebuilt when someone asks for it
+        public Path getPath() {
+            if (path == null) {
+                List<Edge> edges = new ArrayList<Edge>();
+                for (int i = 0; i < numKeyVertices - 1; i++) {
+                    shortestPaths.appendPath(keyVertices[i], keyVertices[i + 1], edges);
+                }
+                path = new Path(edges);
             }
-            // weighted random choice
-            target *= Math.random();
-            int i;
-            for (i = 0; target >= 0 && i < candidates.length; i++) {
-                target -= scores.get(candidates[i]);
+            return path;
+        }
+    }
+
+    // immutable snapshot of a tour, safe to hand to other threads. the path is expanded right away,
+    // so a later update of the shortest paths can't change it or be seen half done
+    public class Tour {
+        private final int[] keyVertices;
+        private final int length;
+        private final int iteration;
+        private final CsrGraph graph;
+        private final int[] pathEdges;
+        private final Path path;
+
+        private Tour(int[] keyVertices, int numKeyVertices, int length, int iteration) {
+            this.keyVertices = Arrays.copyOf(keyVertices, numKeyVertices);
+            this.length = length;
+            this.iteration = iteration;
+            graph = shortestPaths.graph();
+            int num = 0;
+            for (int i = 0; i < numKeyVertices - 1; i++) {
+                num += shortestPaths.numPathEdges(keyVertices[i], keyVertices[i + 1]);
+            }
+            pathEdges = new int[num];
+            for (int i = 0, pos = 0; i < numKeyVertices - 1; i++) {
+                pos = shortestPaths.appendPathEdges(keyVertices[i], keyVertices[i + 1], pathEdges, pos);
+            }
+            path = graph.toPath(pathEdges, num);
+        }
+
+        public int getLength() { return length; }
+        public int getIteration() { return iteration; }
+
+        private ShortestPaths shortestPaths() { return shortestPaths; }
+
+        public List<Vertex> getKeyVertices() {
+            List<Vertex> list = new ArrayList<Vertex>(keyVertices.length);
+            for (int v : keyVertices) {
+                list.add(vertices[v]);
             }
-            return candidates[i - 1];
+            return list;
         }
 
         public Path getPath() {
             return path;
         }
+
+        // the same path as edge indices into graph(), the graph the tour was made on
+        public CsrGraph graph() { return graph; }
+        public int[] getPathEdges() { return pathEdges.clone(); }
     }
 
-    public static record Parameters(Metric metric, float Q, float rho, float temperature, float alpha, float beta, int best) {}
+    // halfPheromones keeps only one triangle of the (always symmetric) pheromone matrix
+    // threads and chunkSize configure the multithreaded executor, <= 0 picks them from the number of cores
+    // every ant draws from its own generator split off the seed, so a seeded run is reproducible with any number of threads
+    // strategy picks the ACO variant, rho is the share of pheromone surviving an iteration
+    // localSearch improves the tours after every wander, null to skip it
+    // engine is the djikstra used when the colony precomputes its own shortest paths
+    public static record Parameters(Metric metric, float Q, float rho, float temperature, float alpha, float beta, int best, boolean halfPheromones,
+                                    Workers.Type executor, int threads, int chunkSize, long seed, Strategy strategy, LocalSearch localSearch,
+                                    ShortestPaths.Engine engine) {
+        public Parameters(Metric metric, float Q, float rho, float temperature, float alpha, float beta, int best) {
+            this(metric, Q, rho, temperature, alpha, beta, best, true, Workers.Type.FORK_JOIN, 0, 0, System.nanoTime(), new AntSystem(), null,
+                    ShortestPaths.Engine.INDEXED_HEAP);
+        }
+
+        public Parameters withExecutor(Workers.Type executor, int threads, int chunkSize) {
+            return new Parameters(metric, Q, rho, temperature, alpha, beta, best, halfPheromones, executor, threads, chunkSize, seed, strategy, localSearch, engine);
+        }
+
+        public Parameters withSeed(long seed) {
+            return new Parameters(metric, Q, rho, temperature, alpha, beta, best, halfPheromones, executor, threads, chunkSize, seed, strategy, localSearch, engine);
+        }
+
+        public Parameters withStrategy(Strategy strategy) {
+            return new Parameters(metric, Q, rho, temperature, alpha, beta, best, halfPheromones, executor, threads, chunkSize, seed, strategy, localSearch, engine);
+        }
+
+        public Parameters withLocalSearch(LocalSearch localSearch) {
+            return new Parameters(metric, Q, rho, temperature, alpha, beta, best, halfPheromones, executor, threads, chunkSize, seed, strategy, localSearch, engine);
+        }
+
+        public Parameters withEngine(ShortestPaths.Engine engine) {
+            return new Parameters(metric, Q, rho, temperature, alpha, beta, best, halfPheromones, executor, threads, chunkSize, seed, strategy, localSearch, engine);
+        }
+    }
 
-    private Digraph dg;
     private Parameters parameters;
 
-    private Map<Vertex, HashMap<Vertex, Path>> shortestPaths = new HashMap<>();
-    private Map<Vertex, HashMap<Vertex, Float>> pheromones = new HashMap<>();
+    // vertices are remapped to dense indices 0..n-1 by the shortest paths, all matrices are flat row-major arrays
+    private final int n;
+    private final Vertex[] vertices;
 
-    private List<Ant> ants = new ArrayList<Ant>();
+    private final ShortestPaths shortestPaths;
+    private final float[] pheromones;
+
+    // the vertices of every shortest path (excluding its start) as a bitset of words longs, so counting the
+    // unvisited ones is an and plus popcount. shared with every other colony on the same shortest paths, null
+    // for graphs where it would be too large
+    private final int words;
+    private final long[] pathBits;
 
+    private int[] neighborLists; // only with local search
+
+    private List<Ant> ants = new ArrayList<Ant>();
+    private final Rng rng;
+    private int iteration;
+
+    // best tour found so far, replaced (never modified) whenever a better one shows up
+    private volatile Tour best;
+
+    // ranked tour lengths and their deposits, reused every iteration
+    private int[] lengths = new int[0];
+    private float[] amounts = new float[0];
+
+    private Workers workers; // created on first multithreaded use
+    private MetricsSink metricsSink;
+    private boolean verbose = true; // learn prints the best length of every iteration
+
+    // periodic checkpoints are written by a single background thread shared by all colonies,
+    // one at a time per colony: if the last one is still being written the next is skipped
+    private static final ExecutorService CHECKPOINT_WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "checkpoint-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private File checkpointFile;
+    private int checkpointInterval;
+    private CompletableFuture<Void> lastCheckpoint = CompletableFuture.completedFuture(null);
 
     public Colony(Digraph dg, Parameters parameters) {
-        this.dg = dg;
+        // precompute shortest paths
+        this(new ShortestPaths(new CsrGraph(dg), parameters.metric, parameters.engine), parameters);
+    }
+
+    public Colony(ShortestPaths shortestPaths, Parameters parameters) {
+        this(shortestPaths, parameters, new Rng(parameters.seed));
+    }
+
+    private Colony(ShortestPaths shortestPaths, Parameters parameters, Rng rng) {
+        if (shortestPaths.metric() != parameters.metric) {
+            throw new IllegalArgumentException("shortest paths were computed for " + shortestPaths.metric() + ", not " + parameters.metric);
+        }
+        if (shortestPaths.size() < 2) {
+            throw new IllegalArgumentException("a tour needs at least two vertices, got " + shortestPaths.size());
+        }
+        int unreachable = shortestPaths.unreachablePair();
+        if (unreachable >= 0) {
+            int size = shortestPaths.size();
+            throw new IllegalArgumentException("graph is not strongly connected, there is no path from "
+                    + shortestPaths.vertex(unreachable / size) + " to " + shortestPaths.vertex(unreachable % size));
+        }
+        this.shortestPaths = shortestPaths;
         this.parameters = parameters;
 
-        // precompute shortest paths
-        Djikstra dj = new Djikstra(dg);
-        for (Vertex va : dg.vertexSet()) {
-            shortestPaths.put(va, new HashMap<Vertex, Path>());
-            pheromones.put(va, new HashMap<>());
-            for (Vertex vb : dg.vertexSet()) {
-                if (!va.equals(vb)) {
-                    shortestPaths.get(va).put(vb, dj.shortestPath(va, vb, parameters.metric));
-                    setPheromones(va, vb, 1f);
-                }
-            }
+        n = shortestPaths.size();
+        vertices = new Vertex[n];
+        for (int i = 0; i < n; i++) {
+            vertices[i] = shortestPaths.vertex(i);
         }
+
+        this.rng = rng;
+
+        words = (n + 63) >>> 6;
+        pathBits = shortestPaths.pathBits();
+        neighborLists = parameters.localSearch != null ? parameters.localSearch.neighborLists(shortestPaths) : null;
+
+        pheromones = new float[parameters.halfPheromones ? n * (n - 1) / 2 : n * n];
+        Arrays.fill(pheromones, parameters.strategy.initialPheromone(this));
     }
 
-    private Path getPrecomputedPath(Vertex a, Vertex b) {
-        return shortestPaths.get(a).get(b);
+    public Parameters getParameters() { return parameters; }
+    public int size() { return n; }
+    public int getIteration() { return iteration; }
+
+    private int getCost(int a, int b) {
+        return shortestPaths.cost(a, b);
+    }
+
+    // a != b
+    private int pheromoneIndex(int a, int b) {
+        if (!parameters.halfPheromones) {
+            return a * n + b;
+        }
+        return a > b ? a * (a - 1) / 2 + b : b * (b - 1) / 2 + a;
     }
 
-    private float getPheromones(Vertex a, Vertex b) {
-        return pheromones.get(a).get(b);
+    public float getPheromones(int a, int b) {
+        return pheromones[pheromoneIndex(a, b)];
     }
 
-    private void setPheromones(Vertex a, Vertex b, float value) {
-        pheromones.get(a).put(b, value);
+    public void setPheromones(int a, int b, float value) {
+        pheromones[pheromoneIndex(a, b)] = value;
     }
 
     public void addAnts(int numAnts) {
         for (int i = 0; i < numAnts; i++) {
-            ants.add(new Ant());
+            ants.add(new Ant(rng.split()));
         }
     }
 
     private void wander(boolean multithreaded, int iteration) {
-        List<Vertex> vertices = new ArrayList<Vertex>(dg.vertexSet());
         int b = iteration == 1 ? 0 : parameters.best;
         if (multithreaded) {
-            Thread[] threads = new Thread[ants.size() - b];
+            workers().forEachChunk(b, ants.size(), (from, to) -> {
+                for (int i = from; i < to; i++) {
+                    ants.get(i).wander();
+                }
+            });
+        } else {
             for (int i = b; i < ants.size(); i++) {
-                int j = i;
-                threads[i-b] = new Thread(() -> { ants.get(j).wander(vertices.get((int)(Math.random() * vertices.size()))); });
-                // threads[i] = new Thread(() -> { ants.get(j).wander(vertices.get(0)); });
-                threads[i-b].start();
+                ants.get(i).wander();
+                // ants.get(i).wander(0);
             }
+        }
+        
+    }
 
-            for (Thread t : threads) {
-                try {
-                    t.join();
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
+    // local search on every new tour, or only on the best few
+    private void improveTours(boolean multithreaded, int iteration) {
+        LocalSearch localSearch = parameters.localSearch;
+        if (localSearch == null) {
+            return;
+        }
+        int from = iteration == 1 ? 0 : parameters.best;
+        int to = ants.size();
+        if (localSearch.topK() > 0) {
+            selectBestAnts(localSearch.topK());
+            from = 0;
+            to = Math.min(to, localSearch.topK());
+        }
+
+        if (multithreaded) {
+            workers().forEachChunk(from, to, (lo, hi) -> {
+                LocalSearch.Workspace ws = new LocalSearch.Workspace(n);
+                for (int i = lo; i < hi; i++) {
+                    ants.get(i).improve(ws);
                 }
-            }
+            });
         } else {
-            for (int i = b; i < ants.size(); i++) {
-                ants.get(i).wander(vertices.get((int)(Math.random() * vertices.size())));
-                // ants.get(i).wander(vertices.get(0));
+            LocalSearch.Workspace ws = new LocalSearch.Workspace(n);
+            for (int i = from; i < to; i++) {
+                ants.get(i).improve(ws);
+            }
+        }
+    }
+
+    private Workers workers() {
+        if (workers == null) {
+            workers = new Workers(parameters.executor, parameters.threads, parameters.chunkSize);
+        }
+        return workers;
+    }
+
+    @Override
+    public void close() {
+        try {
+            lastCheckpoint.join();
+        } catch (CompletionException e) {
+            e.printStackTrace();
+        }
+        if (workers != null) {
+            workers.close();
+            workers = null;
+        }
+    }
+
+    // deposits of one chunk of ants, bucketed by the block of the pheromone array they land in
+    private class DepositBuffer {
+        private int[][] cells = new int[0][];
+        private float[][] amounts = new float[0][];
+        private int[] counts = new int[0];
+
+        void clear(int numBlocks) {
+            if (counts.length != numBlocks) {
+                cells = new int[numBlocks][16];
+                amounts = new float[numBlocks][16];
+                counts = new int[numBlocks];
+            }
+            Arrays.fill(counts, 0);
+        }
+
+        void add(int block, int cell, float amount) {
+            int c = counts[block];
+            if (c == cells[block].length) {
+                cells[block] = Arrays.copyOf(cells[block], 2 * c);
+                amounts[block] = Arrays.copyOf(amounts[block], 2 * c);
+            }
+            cells[block][c] = cell;
+            amounts[block][c] = amount;
+            counts[block] = c + 1;
+        }
+
+        void apply(int block) {
+            int[] cs = cells[block];
+            float[] as = amounts[block];
+            for (int i = 0; i < counts[block]; i++) {
+                pheromones[cs[i]] = parameters.strategy.deposit(Colony.this, pheromones[cs[i]], as[i]);
             }
         }
-        
     }
 
+    private DepositBuffer[] depositBuffers = new DepositBuffer[0];
+    private DepositBuffer bestDepositBuffer = new DepositBuffer();
+
     public void updatePheromones() {
-        // evaporate
-        for (Vertex a : dg.vertexSet()) {
-            for (Vertex b : dg.vertexSet()) {
-                if (a != b) {
-                    setPheromones(a, b, Math.max(0.5f, parameters.rho * getPheromones(a, b)));
-                }
+        updatePheromones(false);
+    }
+
+    private void updatePheromones(boolean multithreaded) {
+        Strategy strategy = parameters.strategy;
+
+        // rank the tours and remember the best one so far
+        selectBestAnts(numRanked());
+        int numTours = ants.size();
+        if (lengths.length != numTours) {
+            lengths = new int[numTours];
+            amounts = new float[numTours];
+        }
+        for (int i = 0; i < numTours; i++) {
+            lengths[i] = ants.get(i).getLength();
+        }
+        Ant first = ants.get(0);
+        if (best == null || first.getLength() < best.length) {
+            best = new Tour(first.keyVertices, first.numKeyVertices, first.getLength(), iteration);
+        }
+        Tour bestTour = best;
+        float bestAmount = strategy.depositAmounts(this, lengths, numTours, bestTour.length, amounts);
+
+        if (!multithreaded) {
+            strategy.evaporate(this, pheromones, 0, pheromones.length);
+            DepositSink sink = (cell, amount) -> pheromones[cell] = strategy.deposit(this, pheromones[cell], amount);
+            for (int i = 0; i < numTours; i++) {
+                Ant ant = ants.get(i);
+                deposit(ant.keyVertices, ant.numKeyVertices, amounts[i], sink);
             }
+            deposit(bestTour.keyVertices, bestTour.keyVertices.length, bestAmount, sink);
+            return;
         }
 
-        // get global minimum path length
-        int bestPathLength = ants.get(0).getPath().getLength(parameters.metric);
-        for (Ant ant : ants) {
-            int l = ant.getPath().getLength(parameters.metric);
-            if (l < bestPathLength) {
-                bestPathLength = l;
+        // every chunk of ants collects its deposits in its own buffer, then every block of the pheromone
+        // array is evaporated and merged by one worker. buffers are merged in ant order, so the result
+        // is the same as the sequential update
+        Workers w = workers();
+        int antChunk = w.chunkSize(numTours);
+        int blockSize = w.chunkSize(pheromones.length);
+        int numBlocks = (pheromones.length + blockSize - 1) / blockSize;
+        int numBuffers = (numTours + antChunk - 1) / antChunk;
+        if (depositBuffers.length != numBuffers) {
+            depositBuffers = new DepositBuffer[numBuffers];
+            for (int i = 0; i < numBuffers; i++) {
+                depositBuffers[i] = new DepositBuffer();
             }
         }
 
-        // deposit
-        for (Ant ant : ants) {
-            List<Vertex> keyVertices = ant.getKeyVertices();
-            for (int i = 0; i < keyVertices.size() - 1; i++) {
-                Vertex a = keyVertices.get(i);
-                Vertex b = keyVertices.get(i + 1);
+        w.forEachChunk(0, numTours, (from, to) -> {
+            DepositBuffer buffer = depositBuffers[from / antChunk];
+            buffer.clear(numBlocks);
+            for (int i = from; i < to; i++) {
+                Ant ant = ants.get(i);
+                deposit(ant.keyVertices, ant.numKeyVertices, amounts[i], (cell, amount) -> buffer.add(cell / blockSize, cell, amount));
+            }
+        });
+        bestDepositBuffer.clear(numBlocks);
+        deposit(bestTour.keyVertices, bestTour.keyVertices.length, bestAmount, (cell, amount) -> bestDepositBuffer.add(cell / blockSize, cell, amount));
+        w.forEachChunk(0, pheromones.length, (from, to) -> {
+            strategy.evaporate(this, pheromones, from, to);
+            for (DepositBuffer buffer : depositBuffers) {
+                buffer.apply(from / blockSize);
+            }
+            bestDepositBuffer.apply(from / blockSize);
+        });
+    }
+
+    private interface DepositSink {
+        void add(int cell, float amount);
+    }
+
+    private void deposit(int[] keyVertices, int numKeyVertices, float amount, DepositSink sink) {
+        if (amount == 0f) {
+            return;
+        }
+        for (int i = 0; i < numKeyVertices - 1; i++) {
+            int a = keyVertices[i];
+            int b = keyVertices[i + 1];
 
-                float prevPheremoneValue = getPheromones(a, b);
-                float additionalPheremoneValue = (float)Math.pow(bestPathLength / (float)ant.getPath().getLength(parameters.metric), parameters.Q);
-                setPheromones(a, b, prevPheremoneValue + additionalPheremoneValue);
+            sink.add(pheromoneIndex(a, b), amount);
 
-                // also add pheremones to the same path but in the other direction
-                prevPheremoneValue = getPheromones(b, a);
-                setPheromones(b, a, prevPheremoneValue + additionalPheremoneValue);
+            // also add pheremones to the same path but in the other direction
+            // (in half storage both directions share a single entry)
+            if (!parameters.halfPheromones) {
+                sink.add(pheromoneIndex(b, a), amount);
             }
         }
     }
 
+    // exactly iterations more iterations, none if iterations <= 0
     public void learn(int iterations, boolean multithreaded, Display disp, int dispUpdateFrequency) {
-        for (int i = 1; i <= iterations; i++) {
+        learn(SolveLimits.iterations(iterations), multithreaded, disp, dispUpdateFrequency);
+    }
+
+    // runs until one of the limits is hit and returns the best tour so far, which other
+    // threads can also read at any time through getBestTour. another call picks up where
+    // the last one stopped, iterations keep counting from there
+    public Tour learn(SolveLimits limits, boolean multithreaded, Display disp, int dispUpdateFrequency) {
+        long deadline = limits.timeBudgetMillis() > 0 ? System.currentTimeMillis() + limits.timeBudgetMillis() : Long.MAX_VALUE;
+        int first = iteration + 1;
+        int lastImprovement = iteration;
+        int lastBestLength = best == null ? Integer.MAX_VALUE : best.length;
+        for (int i = first; limits.maxIterations() == SolveLimits.UNLIMITED || i - first < limits.maxIterations(); i++) {
+            iteration = i;
+            SolverEvents.Iteration iterationEvent = new SolverEvents.Iteration();
+            iterationEvent.begin();
+            boolean measure = metricsSink != null || iterationEvent.isEnabled();
+            long allocated = measure ? allocatedBytes() : -1;
+
+            long start = System.nanoTime();
+            SolverEvents.Wander wanderEvent = new SolverEvents.Wander();
+            wanderEvent.begin();
             wander(multithreaded, i);
-            updatePheromones();
-            sortAnts();
-            System.out.println(i + ": " + ants.get(0).path.getLength(parameters.metric));
+            wanderEvent.iteration = i;
+            wanderEvent.ants = ants.size() - (i == 1 ? 0 : Math.min(parameters.best, ants.size()));
+            wanderEvent.commit();
+
+            long wandered = System.nanoTime();
+            if (parameters.localSearch != null) {
+                SolverEvents.LocalSearch localSearchEvent = new SolverEvents.LocalSearch();
+                localSearchEvent.begin();
+                improveTours(multithreaded, i);
+                localSearchEvent.iteration = i;
+                localSearchEvent.commit();
+            }
+
+            long improved = System.nanoTime();
+            SolverEvents.PheromoneUpdate updateEvent = new SolverEvents.PheromoneUpdate();
+            updateEvent.begin();
+            updatePheromones(multithreaded);
+            updateEvent.iteration = i;
+            updateEvent.tours = ants.size();
+            updateEvent.commit();
+
+            long updated = System.nanoTime();
+            if (verbose) {
+                System.out.println(i + ": " + ants.get(0).getLength());
+            }
             if (disp != null && i % dispUpdateFrequency == 0) {
-                disp.updatePath(bestPath());
+                disp.updateTour(best);
+            }
+            long displayed = System.nanoTime();
+
+            if (measure) {
+                int worst = 0;
+                long sum = 0;
+                for (int j = 0; j < ants.size(); j++) {
+                    worst = Math.max(worst, lengths[j]);
+                    sum += lengths[j];
+                }
+                long now = allocatedBytes();
+                long allocatedNow = allocated < 0 || now < allocated ? -1 : now - allocated;
+                double antsPerSecond = wanderEvent.ants * 1e9 / Math.max(1, wandered - start);
+
+                iterationEvent.iteration = i;
+                iterationEvent.bestLength = best.length;
+                iterationEvent.iterationBestLength = lengths[0];
+                iterationEvent.meanLength = (double) sum / ants.size();
+                iterationEvent.worstLength = worst;
+                iterationEvent.antsPerSecond = antsPerSecond;
+                iterationEvent.allocatedBytes = allocatedNow;
+                iterationEvent.commit();
+
+                if (metricsSink != null) {
+                    double[] trail = pheromoneStatistics();
+                    metricsSink.record(new IterationMetrics(i, best.length, lengths[0], (double) sum / ants.size(), worst,
+                            trail[0], trail[1], wandered - start, improved - wandered, updated - improved, displayed - updated,
+                            antsPerSecond, allocatedNow));
+                }
+            }
+
+            if (checkpointInterval > 0 && i % checkpointInterval == 0 && lastCheckpoint.isDone()) {
+                saveCheckpoint(checkpointFile);
+            }
+
+            if (best.length < lastBestLength) {
+                lastBestLength = best.length;
+                lastImprovement = i;
+            }
+            if ((limits.cancellation() != null && limits.cancellation().isCancelled())
+                    || System.currentTimeMillis() >= deadline
+                    || (limits.stagnation() > 0 && i - lastImprovement >= limits.stagnation())
+                    || (limits.targetLength() > 0 && best.length <= limits.targetLength())) {
+                break;
+            }
+        }
+        return best;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    // learn saves a checkpoint to file every interval iterations, 0 to stop
+    public void setCheckpoints(File file, int interval) {
+        checkpointFile = file;
+        checkpointInterval = file == null ? 0 : interval;
+    }
+
+    // copies the state on the calling thread and writes it in the background. must not run
+    // concurrently with learn
+    public CompletableFuture<Void> saveCheckpoint(File file) {
+        Checkpoint checkpoint = checkpoint();
+        CompletableFuture<Void> written = lastCheckpoint.handle((r, e) -> null).thenRunAsync(() -> {
+            try {
+                checkpoint.write(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+        }, CHECKPOINT_WRITER);
+        lastCheckpoint = written;
+        return written;
+    }
+
+    // a snapshot of everything resume needs. must not run concurrently with learn
+    public Checkpoint checkpoint() {
+        long[] antSeeds = new long[ants.size()];
+        long[] antGammas = new long[ants.size()];
+        for (int i = 0; i < ants.size(); i++) {
+            antSeeds[i] = ants.get(i).rng.seed();
+            antGammas[i] = ants.get(i).rng.gamma();
         }
+        // the ants that keep their tours through the next wander, see wander
+        int numElites = iteration == 0 ? 0 : Math.min(parameters.best, ants.size());
+        int[][] eliteTours = new int[numElites][];
+        int[] eliteLengths = new int[numElites];
+        for (int i = 0; i < numElites; i++) {
+            Ant ant = ants.get(i);
+            eliteTours[i] = Arrays.copyOf(ant.keyVertices, ant.numKeyVertices);
+            eliteLengths[i] = ant.length;
+        }
+        Tour b = best;
+        return new Checkpoint(parameters, parameters.strategy.getClass().getName(), n, shortestPaths.numEdges(), iteration,
+                rng.seed(), rng.gamma(), antSeeds, antGammas, eliteTours, eliteLengths, b == null ? null : b.keyVertices,
+                b == null ? 0 : b.length, b == null ? 0 : b.iteration, pheromones.clone());
     }
 
-    private void sortAnts() {
-        ants.sort((a, b) -> a.getPath().getLength(parameters.metric) - b.getPath().getLength(parameters.metric));
+    // a colony that continues exactly where the checkpointed one stopped, with the saved parameters
+    public static Colony resume(ShortestPaths shortestPaths, Checkpoint checkpoint) {
+        if (checkpoint.parameters == null) {
+            throw new IllegalArgumentException("can't recreate strategy " + checkpoint.strategyClass + ", resume with parameters");
+        }
+        return resume(shortestPaths, checkpoint, checkpoint.parameters);
+    }
+
+    // same, with other parameters (e.g. a strategy without a no argument constructor, or other threads).
+    // metric and pheromone layout have to match the checkpoint
+    public static Colony resume(ShortestPaths shortestPaths, Checkpoint checkpoint, Parameters parameters) {
+        if (checkpoint.n != shortestPaths.size() || checkpoint.numEdges != shortestPaths.numEdges()) {
+            throw new IllegalArgumentException("checkpoint was taken on another graph");
+        }
+        Colony colony = new Colony(shortestPaths, parameters, new Rng(checkpoint.seed, checkpoint.gamma));
+        if (colony.pheromones.length != checkpoint.pheromones.length) {
+            throw new IllegalArgumentException("checkpoint has another pheromone layout");
+        }
+        System.arraycopy(checkpoint.pheromones, 0, colony.pheromones, 0, colony.pheromones.length);
+        colony.iteration = checkpoint.iteration;
+        for (int i = 0; i < checkpoint.antSeeds.length; i++) {
+            colony.ants.add(colony.new Ant(new Rng(checkpoint.antSeeds[i], checkpoint.antGammas[i])));
+        }
+        for (int i = 0; i < checkpoint.eliteTours.length; i++) {
+            Ant ant = colony.ants.get(i);
+            int[] tour = checkpoint.eliteTours[i];
+            System.arraycopy(tour, 0, ant.keyVertices, 0, tour.length);
+            ant.numKeyVertices = tour.length;
+            ant.length = checkpoint.eliteLengths[i];
+        }
+        if (checkpoint.bestTour != null) {
+            colony.best = colony.new Tour(checkpoint.bestTour, checkpoint.bestTour.length, checkpoint.bestLength, checkpoint.bestIteration);
+        }
+        return colony;
+    }
+
+    // per iteration metrics of learn go here as well, null to skip them
+    public void setMetricsSink(MetricsSink metricsSink) {
+        this.metricsSink = metricsSink;
+    }
+
+    // mean entropy and mean lambda-branching factor (lambda 0.05) over the pheromone rows of all
+    // vertices. both fall as the colony converges, so they tell stagnation apart from slow progress
+    private double[] pheromoneStatistics() {
+        if (n < 2) {
+            return new double[] { Double.NaN, Double.NaN };
+        }
+        double entropy = 0;
+        long branches = 0;
+        for (int a = 0; a < n; a++) {
+            float min = Float.MAX_VALUE;
+            float max = 0f;
+            double sum = 0;
+            for (int b = 0; b < n; b++) {
+                if (a != b) {
+                    float tau = getPheromones(a, b);
+                    min = Math.min(min, tau);
+                    max = Math.max(max, tau);
+                    sum += tau;
+                }
+            }
+            float threshold = min + 0.05f * (max - min);
+            for (int b = 0; b < n; b++) {
+                if (a != b) {
+                    float tau = getPheromones(a, b);
+                    if (tau >= threshold) {
+                        branches++;
+                    }
+                    if (tau > 0f) {
+                        double p = tau / sum;
+                        entropy -= p * Math.log(p);
+                    }
+                }
+            }
+        }
+        return new double[] { entropy / n, (double) branches / n };
+    }
+
+    // bytes allocated so far by all live threads, -1 if the jvm can't tell
+    private static long allocatedBytes() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+
+    // how many of the best ants have to be ranked: the elites that skip the next wander and
+    // whatever the strategy looks at
+    private int numRanked() {
+        return Math.max(1, Math.max(parameters.best, parameters.strategy.rankedTours()));
+    }
+
+    // moves the k shortest tours to the front in ascending order, the rest stay unordered.
+    // ties keep the ant that came first
+    private void selectBestAnts(int k) {
+        k = Math.min(k, ants.size());
+        for (int i = 0; i < k; i++) {
+            int min = i;
+            for (int j = i + 1; j < ants.size(); j++) {
+                if (ants.get(j).getLength() < ants.get(min).getLength()) {
+                    min = j;
+                }
+            }
+            if (min != i) {
+                // shift instead of swapping so the unranked ants keep their relative order
+                ants.add(i, ants.remove(min));
+            }
+        }
+    }
+
+    public Tour getBestTour() {
+        return best;
+    }
+
+    // takes a tour of another colony on the same shortest paths as the best tour if it is shorter,
+    // and deposits amount (0 for nothing) along it. must not run concurrently with learn
+    public void offerTour(Tour tour, float amount) {
+        if (tour.shortestPaths() != shortestPaths) {
+            throw new IllegalArgumentException("tour belongs to a colony on other shortest paths");
+        }
+        if (best == null || tour.length < best.length) {
+            best = new Tour(tour.keyVertices, tour.keyVertices.length, tour.length, iteration);
+        }
+        Strategy strategy = parameters.strategy;
+        deposit(tour.keyVertices, tour.keyVertices.length, amount, (cell, a) -> pheromones[cell] = strategy.deposit(this, pheromones[cell], a));
+    }
+
+    // moves every pheromone weight of the way towards the other colony's. the other colony may be
+    // learning meanwhile, so this mixes in whatever its entries hold at the time they are read.
+    // must not run concurrently with learn on this colony
+    public void blendPheromones(Colony other, float weight) {
+        if (other.shortestPaths != shortestPaths || other.pheromones.length != pheromones.length) {
+            throw new IllegalArgumentException("colonies differ in graph or pheromone layout");
+        }
+        float[] theirs = other.pheromones;
+        for (int i = 0; i < pheromones.length; i++) {
+            pheromones[i] += weight * (theirs[i] - pheromones[i]);
+        }
+    }
+
+    // updates the shortest paths to the edges changed on dg, see ShortestPaths.update, and adjusts
+    // this colony to them. other colonies on the same paths need graphChanged with the result.
+    // must not run concurrently with learn
+    public BitSet updateGraph(Digraph dg) {
+        BitSet changed = shortestPaths.update(dg);
+        graphChanged(changed);
+        return changed;
+    }
+
+    // pairs whose shortest path cost changed lose what was learned about them and go back to the
+    // initial pheromone, every other pair keeps its pheromone. the tours that survive into the next
+    // iteration are measured again with the new costs
+    public void graphChanged(BitSet changedPairs) {
+        if (changedPairs.isEmpty()) {
+            return;
+        }
+        for (int i = changedPairs.nextSetBit(0); i >= 0; i = changedPairs.nextSetBit(i + 1)) {
+            if (getCost(i / n, i % n) == Integer.MAX_VALUE) {
+                throw new IllegalStateException("no path from " + vertices[i / n] + " to " + vertices[i % n] + " anymore");
+            }
+        }
+        float initial = parameters.strategy.initialPheromone(this);
+        for (int i = changedPairs.nextSetBit(0); i >= 0; i = changedPairs.nextSetBit(i + 1)) {
+            int a = i / n;
+            int b = i % n;
+            setPheromones(a, b, initial);
+            setPheromones(b, a, initial);
+        }
+        if (parameters.localSearch != null) {
+            neighborLists = parameters.localSearch.neighborLists(shortestPaths);
+        }
+        for (Ant ant : ants) {
+            ant.length = tourLength(ant.keyVertices, ant.numKeyVertices);
+            ant.path = null;
+        }
+        Tour b = best;
+        if (b != null) {
+            best = new Tour(b.keyVertices, b.keyVertices.length, tourLength(b.keyVertices, b.keyVertices.length), b.iteration);
+        }
+    }
+
+    private int tourLength(int[] keyVertices, int numKeyVertices) {
+        int length = 0;
+        for (int i = 0; i < numKeyVertices - 1; i++) {
+            length += getCost(keyVertices[i], keyVertices[i + 1]);
+        }
+        return length;
     }
 
     public Path bestPath() {
-        sortAnts();
-        return ants.get(0).path;
+        return best.getPath();
     }
 
 }
@@ -0,0 +1,223 @@
+package core;
+
+import static core.Digraph.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import core.Utils.Metric;
+
+// frozen compressed sparse row copy of a digraph. vertices are densely indexed in id order,
+// the outgoing edges of vertex v are the edge indices offsets[v] until offsets[v + 1], kept in
+// adjacency order. costs for every metric are computed once, everything else about an edge
+// lives in side arrays so traversals only touch the arrays they need. the incoming edges of v
+// are inEdges[inOffsets[v]] until inEdges[inOffsets[v + 1]], for searching backwards
+public class CsrGraph {
+
+    private final int n;
+    private final Vertex[] vertices;
+    private final int[] ids; // sorted, for binary search
+    private final int[] xs, ys;
+
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] targets;
+    private final int[][] costs; // [metric ordinal][edge]
+
+    private final int[] inOffsets;
+    private final int[] inEdges;
+
+    // per metric, the largest factor with cost >= factor * straight line distance on every edge
+    private final double[] lowerBoundScales;
+
+    private final Edge[] edges;
+    private final int[] lengths;
+    private final int[] angles;
+    private final char[] edgeTypes;
+
+    public CsrGraph(Digraph dg) {
+        vertices = dg.vertexSet().toArray(new Vertex[0]);
+        Arrays.sort(vertices, Comparator.comparingInt(Vertex::hashCode));
+        n = vertices.length;
+
+        ids = new int[n];
+        xs = new int[n];
+        ys = new int[n];
+        Map<Vertex, Integer> indices = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            ids[i] = vertices[i].hashCode();
+            xs[i] = vertices[i].getX();
+            ys[i] = vertices[i].getY();
+            indices.put(vertices[i], i);
+        }
+
+        int m = dg.numEdges();
+        offsets = new int[n + 1];
+        sources = new int[m];
+        targets = new int[m];
+        edges = new Edge[m];
+        lengths = new int[m];
+        angles = new int[m];
+        edgeTypes = new char[m];
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = e;
+            for (Edge edge : dg.neighboringEdges(vertices[i])) {
+                sources[e] = i;
+                targets[e] = indices.get(edge.getDst());
+                edges[e] = edge;
+                lengths[e] = edge.getLength();
+                angles[e] = edge.getAngle();
+                edgeTypes[e] = edge.getEdgeType();
+                e++;
+            }
+        }
+        offsets[n] = e;
+
+        // counting sort of the edges by target
+        inOffsets = new int[n + 1];
+        inEdges = new int[m];
+        for (e = 0; e < m; e++) {
+            inOffsets[targets[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        int[] next = Arrays.copyOf(inOffsets, n);
+        for (e = 0; e < m; e++) {
+            inEdges[next[targets[e]]++] = e;
+        }
+
+        Metric[] metrics = Metric.values();
+        costs = new int[metrics.length][m];
+        lowerBoundScales = new double[metrics.length];
+        for (Metric metric : metrics) {
+            // left null if some edge type has no cost for the metric, asking for it then throws
+            boolean known = true;
+            for (e = 0; e < m && known; e++) {
+                known = edges[e].hasCost(metric);
+            }
+            if (!known) {
+                costs[metric.ordinal()] = null;
+                continue;
+            }
+            double scale = Double.MAX_VALUE;
+            for (e = 0; e < m; e++) {
+                costs[metric.ordinal()][e] = edges[e].getCost(metric);
+                double distance = distance(sources[e], targets[e]);
+                if (distance > 0) {
+                    scale = Math.min(scale, costs[metric.ordinal()][e] / distance);
+                }
+            }
+            // shaved a little so rounding can't push a bound past the real cost
+            lowerBoundScales[metric.ordinal()] = scale == Double.MAX_VALUE ? 0 : scale * (1 - 1e-9);
+        }
+    }
+
+    public int numVertices() { return n; }
+    public int numEdges() { return edges.length; }
+
+    public Vertex vertex(int v) { return vertices[v]; }
+    public int id(int v) { return ids[v]; }
+    public int x(int v) { return xs[v]; }
+    public int y(int v) { return ys[v]; }
+
+    // dense index of the vertex with this id, -1 if there is none
+    public int indexOf(int id) {
+        int v = Arrays.binarySearch(ids, id);
+        return v < 0 ? -1 : v;
+    }
+
+    public int indexOf(Vertex vertex) {
+        return indexOf(vertex.hashCode());
+    }
+
+    // straight line distance in feet
+    public double distance(int a, int b) {
+        double dx = xs[a] - xs[b];
+        double dy = ys[a] - ys[b];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // a lower bound on the cost of any path from a to b, consistent so it can guide A*
+    public int lowerBound(Metric metric, int a, int b) {
+        return (int) (lowerBoundScales[metric.ordinal()] * distance(a, b));
+    }
+
+    public int firstEdge(int v) { return offsets[v]; }
+    public int endEdge(int v) { return offsets[v + 1]; }
+
+    public int firstInEdge(int v) { return inOffsets[v]; }
+    public int endInEdge(int v) { return inOffsets[v + 1]; }
+    public int inEdge(int i) { return inEdges[i]; }
+
+    public int source(int e) { return sources[e]; }
+    public int target(int e) { return targets[e]; }
+    public int cost(Metric metric, int e) { return costs(metric)[e]; }
+
+    public Edge edge(int e) { return edges[e]; }
+    public int length(int e) { return lengths[e]; }
+    public int angle(int e) { return angles[e]; }
+    public char edgeType(int e) { return edgeTypes[e]; }
+
+    // shared, not copied, so callers must not write to them
+    int[] offsets() { return offsets; }
+    int[] targets() { return targets; }
+    int[] sources() { return sources; }
+    int[] inOffsets() { return inOffsets; }
+    int[] inEdges() { return inEdges; }
+    int[] costs(Metric metric) {
+        if (costs[metric.ordinal()] == null) {
+            throw new IllegalStateException("the graph has edge types without a cost for " + metric);
+        }
+        return costs[metric.ordinal()];
+    }
+
+    // a vertex that can't be reached from vertex 0 or can't reach it, -1 if every vertex reaches
+    // every other one. one search forwards and one backwards
+    public int unreachableVertex() {
+        if (n == 0) {
+            return -1;
+        }
+        for (boolean forward : new boolean[] { true, false }) {
+            boolean[] reached = new boolean[n];
+            int[] queue = new int[n];
+            int size = 0;
+            queue[size++] = 0;
+            reached[0] = true;
+            for (int head = 0; head < size; head++) {
+                int v = queue[head];
+                int from = forward ? offsets[v] : inOffsets[v];
+                int to = forward ? offsets[v + 1] : inOffsets[v + 1];
+                for (int i = from; i < to; i++) {
+                    int w = forward ? targets[i] : sources[inEdges[i]];
+                    if (!reached[w]) {
+                        reached[w] = true;
+                        queue[size++] = w;
+                    }
+                }
+            }
+            if (size < n) {
+                for (int v = 0; v < n; v++) {
+                    if (!reached[v]) {
+                        return v;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    // the edges of a path given as edge indices
+    public Path toPath(int[] path, int num) {
+        List<Edge> list = new ArrayList<>(num);
+        for (int i = 0; i < num; i++) {
+            list.add(edges[path[i]]);
+        }
+        return new Path(list);
+    }
+}
@@ -7,9 +7,12 @@ import core.Utils.Metric;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Arrays;
 
 public class Digraph {
+    private static final Metric[] METRICS = Metric.values();
+
     public static class Vertex {
         private String name;
         private int id;
@@ -51,6 +54,7 @@ public class Digraph {
         private int angle;
         private String direction;
         private char edgeType;
+        private int[] costs; // by metric ordinal, -1 if the edge type has no cost for the metric
 
         public Edge(Vertex src, Vertex dst, int length, String name, int id, int angle, String direction, char edgeType) {
             this.src = src;
@@ -61,6 +65,10 @@ public class Digraph {
             this.angle = angle;
             this.direction = direction;
             this.edgeType = edgeType;
+            costs = new int[METRICS.length];
+            for (Metric metric : METRICS) {
+                costs[metric.ordinal()] = Utils.edgeCost(length, edgeType, metric);
+            }
         }
 
         public Vertex getSrc() { return src; }
@@ -69,6 +77,14 @@ public class Digraph {
         public int getAngle() { return angle; }
         public String getDirection() { return direction; }
         public char getEdgeType() { return edgeType; }
+        public int getCost(Metric metric) {
+            if (costs[metric.ordinal()] < 0) {
+                throw new IllegalStateException("illegal edge type code '" + edgeType + "' for " + metric);
+            }
+            return costs[metric.ordinal()];
+        }
+
+        boolean hasCost(Metric metric) { return costs[metric.ordinal()] >= 0; }
 
         public String toString() { return name; }
 
@@ -86,15 +102,23 @@ public class Digraph {
     public static class Path {
         public final List<Edge> edges;
 
-        private int length = 0;
-        private Metric metric = null;
+        private final int[] lengths; // by metric, summed on first use, -1 until then
 
-        public Path(List<Edge> edges) { this.edges = new ArrayList<>(edges); }
+        public Path(List<Edge> edges) {
+            this.edges = new ArrayList<>(edges);
+            lengths = new int[METRICS.length];
+            Arrays.fill(lengths, -1);
+        }
 
         public int getLength(Metric metric) {
-            if (this.metric == metric) { return length; }
-            this.metric = metric;
-            length = Utils.pathCost(edges, metric);
+            int length = lengths[metric.ordinal()];
+            if (length < 0) {
+                length = 0;
+                for (Edge e : edges) {
+                    length += e.getCost(metric);
+                }
+                lengths[metric.ordinal()] = length;
+            }
             return length;
         }
 
@@ -116,6 +140,7 @@ public class Digraph {
     }
 
     private Map<Vertex, List<Edge>> neighbors = new HashMap<Vertex, List<Edge>>();
+    private Map<Integer, Vertex> verticesById = new HashMap<Integer, Vertex>();
 
     public String toString() {
         StringBuffer s = new StringBuffer();
@@ -134,6 +159,7 @@ public class Digraph {
             return;
         }
         neighbors.put(vertex, new ArrayList<Edge>());
+        verticesById.put(vertex.id, vertex);
     }
     
     public void addEdge(Vertex from, Vertex to, int length, String name, int id, int angle, String direction, char edgeType) {
@@ -142,12 +168,35 @@ public class Digraph {
         neighbors.get(from).add(new Edge(from, to, length, name, id, angle, direction, edgeType));
     }
 
-    public List<Edge> neighboringEdges(Vertex vertex) {
-        List<Edge> list = new ArrayList<Edge>();
-        for(Edge e : neighbors.get(vertex)) {
-            list.add(e);
+    // removes this very edge, false if it isn't in the graph
+    public boolean removeEdge(Edge edge) {
+        List<Edge> edges = neighbors.get(edge.src);
+        for (int i = 0; edges != null && i < edges.size(); i++) {
+            if (edges.get(i) == edge) {
+                edges.remove(i);
+                return true;
+            }
         }
-        return list;
+        return false;
+    }
+
+    // swaps edge for a copy with a new length and type at the same place among its neighbours and
+    // returns the copy. edges are never changed in place since paths cache their costs
+    public Edge reweightEdge(Edge edge, int length, char edgeType) {
+        List<Edge> edges = neighbors.get(edge.src);
+        for (int i = 0; edges != null && i < edges.size(); i++) {
+            if (edges.get(i) == edge) {
+                Edge copy = new Edge(edge.src, edge.dst, length, edge.name, edge.id, edge.angle, edge.direction, edgeType);
+                edges.set(i, copy);
+                return copy;
+            }
+        }
+        throw new IllegalArgumentException("edge " + edge + " is not in the graph");
+    }
+
+    // read-only views, freeze into a CsrGraph for anything that walks the graph repeatedly
+    public List<Edge> neighboringEdges(Vertex vertex) {
+        return Collections.unmodifiableList(neighbors.get(vertex));
     }
 
     public List<Vertex> neighboringVertices(Vertex vertex) {
@@ -168,15 +217,22 @@ public class Digraph {
     }
 
     public Vertex getVertex(int id) {
-        for (Vertex v : neighbors.keySet()) {
-            if(v.hashCode() == id) {
-                return v;
-            }
+        return verticesById.get(id);
+    }
+
+    public int numVertices() {
+        return neighbors.size();
+    }
+
+    public int numEdges() {
+        int total = 0;
+        for (List<Edge> edges : neighbors.values()) {
+            total += edges.size();
         }
-        return null;
+        return total;
     }
 
     public Set<Vertex> vertexSet() {
-        return new HashSet<Vertex>(neighbors.keySet());
+        return Collections.unmodifiableSet(neighbors.keySet());
     }
 }
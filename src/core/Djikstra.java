@@ -11,16 +11,55 @@ import java.util.Set;
 
 public class Djikstra {
 
-    private Digraph dg;
+    private CsrGraph g;
     private Map<Vertex, Integer> vertexScores = new HashMap<Vertex, Integer>();
     private Set<Vertex> markedVertices = new HashSet<Vertex>();
-    private Map<Vertex, Edge> backPointers = new HashMap<Vertex, Edge>();
+    private Map<Vertex, Integer> backPointers = new HashMap<Vertex, Integer>(); // csr edge indices
     private VertexHeap heap = new VertexHeap(vertexScores);
 
-    public Djikstra(Digraph dg) { this.dg = dg; }
+    public Djikstra(Digraph dg) { this(new CsrGraph(dg)); }
+    public Djikstra(CsrGraph g) { this.g = g; }
 
     public Path shortestPath(Vertex start, Vertex finish, Metric metric) { 
+        search(start, finish, metric);
+        return pathTo(finish);
+    }
+
+    // runs until every reachable vertex is marked, so afterwards pathTo and scoreOf
+    // can be queried for any destination without searching again
+    public void shortestPathTree(Vertex start, Metric metric) {
+        search(start, null, metric);
+    }
+
+    public Path pathTo(Vertex finish) {
+        // assemble the path from backpointers
         List<Edge> path = new LinkedList<Edge>();
+        Integer e = backPointers.get(finish);
+        while (e != null) {
+            path.add(0, g.edge(e)); 
+            e = backPointers.get(g.vertex(g.source(e)));
+        }
+        return new Path(path);
+    }
+
+    // Integer.MAX_VALUE if v was not reached
+    public int scoreOf(Vertex v) {
+        return vertexScores.getOrDefault(v, Integer.MAX_VALUE);
+    }
+
+    // last edge on the shortest path to v, null for the start vertex
+    public Edge backPointerOf(Vertex v) {
+        Integer e = backPointers.get(v);
+        return e == null ? null : g.edge(e);
+    }
+
+    // same as backPointerOf but as an index into the csr graph, -1 for the start vertex
+    public int backPointerIndexOf(Vertex v) {
+        Integer e = backPointers.get(v);
+        return e == null ? -1 : e;
+    }
+
+    private void search(Vertex start, Vertex finish, Metric metric) {
         vertexScores.clear();
         markedVertices.clear();
         backPointers.clear();
@@ -35,36 +74,29 @@ public class Djikstra {
             Vertex currentVertex = heap.popMin();
             // if it's the end, we can stop early
             if (currentVertex.equals(finish)) {
-                // assemble the path from backpointers
-                Edge e = backPointers.get(finish);
-                while (e != null) {
-                    path.add(0, e); 
-                    e = backPointers.get(e.getSrc());
-                }
-                // stop early
                 break; 
             }
             // mark the vertex and update its neighbors
             mark(currentVertex, metric);
         }
-        return new Path(path); 
     }
 
     private void mark(Vertex v, Metric metric) {
         markedVertices.add(v);
 
-        for (Edge neighboringEdge : dg.neighboringEdges(v)) {
-            Vertex neighbor = neighboringEdge.getDst();
+        int i = g.indexOf(v);
+        for (int e = g.firstEdge(i); e < g.endEdge(i); e++) {
+            Vertex neighbor = g.vertex(g.target(e));
             if (markedVertices.contains(neighbor)) { continue; } // skip if marked
             // compute new cost
-            int newScore = vertexScores.get(v) + computeCost(neighboringEdge, metric);
+            int newScore = vertexScores.get(v) + g.cost(metric, e);
 
             if (!heap.contains(neighbor)) { // vertex hasn't been discovered
                 vertexScores.put(neighbor, newScore); 
-                backPointers.put(neighbor, neighboringEdge);
+                backPointers.put(neighbor, e);
                 heap.insert(neighbor);
             } else if (heap.updateIfSmaller(neighbor, newScore)) { // if this path is better, update vertex and backpointer
-                backPointers.put(neighbor, neighboringEdge);
+                backPointers.put(neighbor, e);
             }
             
         }
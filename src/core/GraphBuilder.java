@@ -1,15 +1,29 @@
 package core;
+import static core.Digraph.*;
+
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class GraphBuilder {
 
-    public static Digraph buildGraphFromFiles(File vertexFile, File edgeFile, boolean includeDebug) throws FileNotFoundException {
+    public static Digraph buildGraphFromFiles(File vertexFile, File edgeFile, boolean includeDebug) throws IOException {
         Digraph dg = new Digraph();
-        try (Scanner vfScanner = new Scanner(vertexFile)) {
-            while (vfScanner.hasNextLine()) {
-                String line = vfScanner.nextLine().trim();
+        try (BufferedReader reader = Files.newBufferedReader(vertexFile.toPath())) {
+            LineTokenizer tokens = new LineTokenizer();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
                 if (line.length() == 0 || line.startsWith("//")) {
                     continue;
                 }
@@ -22,23 +36,23 @@ public class GraphBuilder {
                     }
                 }
 
-                Scanner lineScanner = new Scanner(line);
-
-                int id = lineScanner.nextInt();
-                String label = lineScanner.next();
-                int x = lineScanner.nextInt();
-                int y = lineScanner.nextInt();
-                String name = lineScanner.nextLine().replaceAll("\"", "").trim(); // remove quotes
+                tokens.reset(line);
 
-                lineScanner.close();
+                int id = tokens.nextInt();
+                String label = tokens.next();
+                int x = tokens.nextInt();
+                int y = tokens.nextInt();
+                String name = tokens.rest().replace("\"", "").trim(); // remove quotes
 
                 dg.addVertex(name, id, label, x, y);
             }
         }
 
-        try (Scanner efScanner = new Scanner(edgeFile)) {
-            while (efScanner.hasNextLine()) {
-                String line = efScanner.nextLine().trim();
+        try (BufferedReader reader = Files.newBufferedReader(edgeFile.toPath())) {
+            LineTokenizer tokens = new LineTokenizer();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
                 if (line.length() == 0 || line.startsWith("//")) {
                     continue;
                 }
@@ -51,23 +65,21 @@ public class GraphBuilder {
                     }
                 }
 
-                Scanner lineScanner = new Scanner(line);
-
-                int id = lineScanner.nextInt(); // edge id
-                lineScanner.next(); // vertex label 1
-                lineScanner.next(); // vertex label 2
-                int srcId = lineScanner.nextInt(); // source vertex id
-                int dstId = lineScanner.nextInt(); // destination vertex id
-                int length = lineScanner.nextInt();
-                int angle = lineScanner.nextInt();
-                String dir = lineScanner.next();
-                char edgeType = lineScanner.next().charAt(1);
+                tokens.reset(line);
+
+                int id = tokens.nextInt(); // edge id
+                tokens.skip(); // vertex label 1
+                tokens.skip(); // vertex label 2
+                int srcId = tokens.nextInt(); // source vertex id
+                int dstId = tokens.nextInt(); // destination vertex id
+                int length = tokens.nextInt();
+                int angle = tokens.nextInt();
+                String dir = tokens.next();
+                char edgeType = tokens.next().charAt(1);
                 if (edgeType == 'x') {
                     edgeType = 'F';
                 }
-                String name = lineScanner.nextLine().replaceAll("\"", "").trim(); // remove quotes
-                
-                lineScanner.close();
+                String name = tokens.rest().replace("\"", "").trim(); // remove quotes
 
                 dg.addEdge(dg.getVertex(srcId), dg.getVertex(dstId), length, name, id, angle, dir, edgeType);
             }
@@ -76,4 +88,166 @@ public class GraphBuilder {
         return dg;
     }
 
+    // whitespace separated tokens of one line, without the regex machinery of a Scanner
+    private static class LineTokenizer {
+        private String line;
+        private int pos;
+
+        void reset(String line) {
+            this.line = line;
+            pos = 0;
+        }
+
+        private int start() {
+            while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+            if (pos == line.length()) {
+                throw new IllegalArgumentException("missing field in line: " + line);
+            }
+            return pos;
+        }
+
+        void skip() {
+            start();
+            while (pos < line.length() && !Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        String next() {
+            int from = start();
+            skip();
+            return line.substring(from, pos);
+        }
+
+        int nextInt() {
+            int from = start();
+            boolean negative = line.charAt(pos) == '-';
+            if (negative) {
+                pos++;
+            }
+            int value = 0;
+            int digits = 0;
+            while (pos < line.length() && !Character.isWhitespace(line.charAt(pos))) {
+                char c = line.charAt(pos++);
+                if (c < '0' || c > '9') {
+                    throw new NumberFormatException("not a number: " + line.substring(from, pos));
+                }
+                value = value * 10 + (c - '0');
+                digits++;
+            }
+            if (digits == 0) {
+                throw new NumberFormatException("not a number: " + line.substring(from, pos));
+            }
+            return negative ? -value : value;
+        }
+
+        String rest() {
+            return line.substring(pos);
+        }
+    }
+
+    // binary graph format, all ints big endian:
+    //   magic, version, number of strings, number of vertices, number of edges
+    //   strings: byte length followed by utf-8 bytes
+    //   vertices (sorted by id): id, label, x, y, name
+    //   edges (grouped by source vertex, in adjacency order): id, src, dst, length, angle, direction, edge type, name
+    // where labels, names and directions are indices into the strings, src and dst indices into the vertices
+    private static final int MAGIC = 0x414e5447; // "ANTG"
+    private static final int VERSION = 1;
+
+    public static void writeBinary(Digraph dg, File file) throws IOException {
+        writeBinary(new CsrGraph(dg), file);
+    }
+
+    public static void writeBinary(CsrGraph g, File file) throws IOException {
+        Map<String, Integer> stringIndices = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int numVertices = g.numVertices();
+        int numEdges = g.numEdges();
+        int[] vertexInts = new int[numVertices * 5];
+        int[] edgeInts = new int[numEdges * 8];
+        for (int i = 0; i < numVertices; i++) {
+            Vertex v = g.vertex(i);
+            vertexInts[i * 5] = g.id(i);
+            vertexInts[i * 5 + 1] = intern(v.getLabel(), stringIndices, strings);
+            vertexInts[i * 5 + 2] = g.x(i);
+            vertexInts[i * 5 + 3] = g.y(i);
+            vertexInts[i * 5 + 4] = intern(v.toString(), stringIndices, strings);
+        }
+        for (int e = 0; e < numEdges; e++) {
+            Edge edge = g.edge(e);
+            edgeInts[e * 8] = edge.hashCode();
+            edgeInts[e * 8 + 1] = g.source(e);
+            edgeInts[e * 8 + 2] = g.target(e);
+            edgeInts[e * 8 + 3] = g.length(e);
+            edgeInts[e * 8 + 4] = g.angle(e);
+            edgeInts[e * 8 + 5] = intern(edge.getDirection(), stringIndices, strings);
+            edgeInts[e * 8 + 6] = g.edgeType(e);
+            edgeInts[e * 8 + 7] = intern(edge.toString(), stringIndices, strings);
+        }
+
+        long size = 5L * Integer.BYTES + 4L * (vertexInts.length + edgeInts.length);
+        for (byte[] s : strings) {
+            size += Integer.BYTES + s.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(strings.size()).putInt(numVertices).putInt(numEdges);
+        for (byte[] s : strings) {
+            buffer.putInt(s.length).put(s);
+        }
+        buffer.asIntBuffer().put(vertexInts).put(edgeInts);
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static int intern(String s, Map<String, Integer> stringIndices, List<byte[]> strings) {
+        Integer index = stringIndices.get(s);
+        if (index == null) {
+            index = strings.size();
+            stringIndices.put(s, index);
+            strings.add(s.getBytes(StandardCharsets.UTF_8));
+        }
+        return index;
+    }
+
+    public static Digraph buildGraphFromBinary(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException(file + " is not a binary graph file");
+            }
+            String[] strings = new String[buffer.getInt()];
+            int numVertices = buffer.getInt();
+            int numEdges = buffer.getInt();
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            int[] vertexInts = new int[numVertices * 5];
+            int[] edgeInts = new int[numEdges * 8];
+            buffer.asIntBuffer().get(vertexInts).get(edgeInts);
+
+            Digraph dg = new Digraph();
+            Vertex[] vertices = new Vertex[numVertices];
+            for (int i = 0; i < numVertices; i++) {
+                int o = i * 5;
+                vertices[i] = new Vertex(strings[vertexInts[o + 4]], vertexInts[o], strings[vertexInts[o + 1]], vertexInts[o + 2], vertexInts[o + 3]);
+                dg.addVertex(vertices[i]);
+            }
+            for (int e = 0; e < numEdges; e++) {
+                int o = e * 8;
+                dg.addEdge(vertices[edgeInts[o + 1]], vertices[edgeInts[o + 2]], edgeInts[o + 3], strings[edgeInts[o + 7]], edgeInts[o],
+                        edgeInts[o + 4], strings[edgeInts[o + 5]], (char) edgeInts[o + 6]);
+            }
+            return dg;
+        }
+    }
+
 }
@@ -0,0 +1,351 @@
+package core;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+import static core.Digraph.*;
+
+// synthetic maps for scaling tests. coordinates are in feet like the campus map, every connection is a
+// pair of edges whose length is the distance between the endpoints (a little more for winding paths)
+// and whose edge types mirror each other (up one way is down the other, steps up are steps down).
+// generated graphs are always strongly connected
+public class GraphGenerator {
+
+    private final Rng rng;
+
+    public GraphGenerator(long seed) {
+        rng = new Rng(seed);
+    }
+
+    // n points spread uniformly over a square, joined to every point within the distance that gives
+    // them about degree neighbors on average
+    public Digraph randomGeometric(int n, double degree) {
+        double side = Math.sqrt(n) * 200;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = (int) (rng.nextDouble() * side);
+            ys[i] = (int) (rng.nextDouble() * side);
+        }
+        double radius = Math.sqrt(degree * side * side / (Math.PI * n));
+        return connect(xs, ys, radius, 1.0);
+    }
+
+    // streets on a jittered square grid of about n intersections, with a few blocks missing and a few diagonal shortcuts
+    public Digraph grid(int n) {
+        int side = (int) Math.ceil(Math.sqrt(n));
+        int spacing = 250;
+        int[] xs = new int[side * side];
+        int[] ys = new int[side * side];
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                xs[r * side + c] = c * spacing + rng.nextInt(spacing / 5);
+                ys[r * side + c] = r * spacing + rng.nextInt(spacing / 5);
+            }
+        }
+
+        Builder b = new Builder(xs, ys);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int v = r * side + c;
+                if (c + 1 < side && rng.nextFloat() > 0.08f) {
+                    b.connect(v, v + 1, 1.0);
+                }
+                if (r + 1 < side && rng.nextFloat() > 0.08f) {
+                    b.connect(v, v + side, 1.0);
+                }
+                if (c + 1 < side && r + 1 < side && rng.nextFloat() < 0.03f) {
+                    b.connect(v, v + side + 1, 1.1);
+                }
+            }
+        }
+        b.connectComponents();
+        return b.dg;
+    }
+
+    // buildings in clusters of about clusterSize around randomly placed quads, with winding paths
+    // inside a cluster and the clusters joined to their nearest neighbors
+    public Digraph campus(int n, int clusterSize) {
+        int clusters = Math.max(1, n / clusterSize);
+        double side = Math.sqrt(n) * 250;
+        double spread = Math.sqrt(clusterSize) * 60;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        double[] cx = new double[clusters];
+        double[] cy = new double[clusters];
+        for (int c = 0; c < clusters; c++) {
+            cx[c] = rng.nextDouble() * side;
+            cy[c] = rng.nextDouble() * side;
+        }
+        for (int i = 0; i < n; i++) {
+            int c = rng.nextInt(clusters);
+            xs[i] = (int) Math.max(0, cx[c] + gaussian() * spread);
+            ys[i] = (int) Math.max(0, cy[c] + gaussian() * spread);
+        }
+        return connect(xs, ys, spread / 2, 1.15);
+    }
+
+    private Digraph connect(int[] xs, int[] ys, double radius, double winding) {
+        Builder b = new Builder(xs, ys);
+        SpatialIndex index = new SpatialIndex(xs, ys, radius);
+        double r2 = radius * radius;
+        for (int v = 0; v < xs.length; v++) {
+            int cell = index.cellOf(xs[v], ys[v]);
+            int cr = cell / index.columns;
+            int cc = cell % index.columns;
+            for (int r = Math.max(0, cr - 1); r <= Math.min(index.rows - 1, cr + 1); r++) {
+                for (int c = Math.max(0, cc - 1); c <= Math.min(index.columns - 1, cc + 1); c++) {
+                    int k = r * index.columns + c;
+                    for (int j = index.cellStart[k]; j < index.cellStart[k + 1]; j++) {
+                        int u = index.members[j];
+                        if (u > v && squaredDistance(xs, ys, u, v) <= r2) {
+                            b.connect(v, u, winding);
+                        }
+                    }
+                }
+            }
+        }
+        b.connectComponents();
+        return b.dg;
+    }
+
+    private double gaussian() {
+        // box-muller, only one of the pair is used
+        return Math.sqrt(-2 * Math.log(1 - rng.nextDouble())) * Math.cos(2 * Math.PI * rng.nextDouble());
+    }
+
+    private static int max(int[] values) {
+        int max = 0;
+        for (int v : values) {
+            max = Math.max(max, v);
+        }
+        return max;
+    }
+
+    private static long squaredDistance(int[] xs, int[] ys, int a, int b) {
+        long dx = xs[a] - xs[b];
+        long dy = ys[a] - ys[b];
+        return dx * dx + dy * dy;
+    }
+
+    // points bucketed into square cells, cellStart[k]..cellStart[k+1] indexes the members of cell k
+    private static class SpatialIndex {
+        final int columns;
+        final int rows;
+        final double cellSize;
+        final int[] cellStart;
+        final int[] members;
+
+        SpatialIndex(int[] xs, int[] ys, double cellSize) {
+            int maxX = 0;
+            int maxY = 0;
+            for (int i = 0; i < xs.length; i++) {
+                maxX = Math.max(maxX, xs[i]);
+                maxY = Math.max(maxY, ys[i]);
+            }
+            this.cellSize = Math.max(1.0, cellSize);
+            columns = (int) (maxX / this.cellSize) + 1;
+            rows = (int) (maxY / this.cellSize) + 1;
+            cellStart = new int[columns * rows + 1];
+            members = new int[xs.length];
+            for (int i = 0; i < xs.length; i++) {
+                cellStart[cellOf(xs[i], ys[i]) + 1]++;
+            }
+            for (int k = 0; k < columns * rows; k++) {
+                cellStart[k + 1] += cellStart[k];
+            }
+            int[] fill = Arrays.copyOf(cellStart, cellStart.length - 1);
+            for (int i = 0; i < xs.length; i++) {
+                members[fill[cellOf(xs[i], ys[i])]++] = i;
+            }
+        }
+
+        int cellOf(int x, int y) {
+            return (int) (y / cellSize) * columns + (int) (x / cellSize);
+        }
+
+        // closest point to v that passes the filter, searching rings of cells outwards until no
+        // unsearched cell can hold anything closer. -1 if no point passes
+        int nearest(int[] xs, int[] ys, int v, IntPredicate filter) {
+            int cell = cellOf(xs[v], ys[v]);
+            int cr = cell / columns;
+            int cc = cell % columns;
+            int best = -1;
+            long bestDistance = Long.MAX_VALUE;
+            for (int ring = 0; ring <= Math.max(rows, columns); ring++) {
+                // everything in this ring or further out is at least (ring - 1) cells away
+                double reach = Math.max(0, ring - 1) * cellSize;
+                if (best >= 0 && reach * reach > bestDistance) {
+                    break;
+                }
+                for (int r = cr - ring; r <= cr + ring; r++) {
+                    if (r < 0 || r >= rows) {
+                        continue;
+                    }
+                    for (int c = cc - ring; c <= cc + ring; c++) {
+                        if (c < 0 || c >= columns || (Math.abs(r - cr) != ring && Math.abs(c - cc) != ring)) {
+                            continue;
+                        }
+                        int k = r * columns + c;
+                        for (int j = cellStart[k]; j < cellStart[k + 1]; j++) {
+                            int u = members[j];
+                            if (filter.test(u)) {
+                                long d = squaredDistance(xs, ys, u, v);
+                                if (d < bestDistance) {
+                                    bestDistance = d;
+                                    best = u;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+    }
+
+    // adds vertices and mirrored edge pairs, tracks connectivity with union-find
+    private class Builder {
+        final Digraph dg = new Digraph();
+        final int[] xs;
+        final int[] ys;
+        final Vertex[] vertices;
+        final int[] parent;
+        int edgeId = 0;
+
+        Builder(int[] xs, int[] ys) {
+            this.xs = xs;
+            this.ys = ys;
+            vertices = new Vertex[xs.length];
+            parent = new int[xs.length];
+            for (int i = 0; i < xs.length; i++) {
+                vertices[i] = new Vertex("Vertex " + i, i, "V" + i, xs[i], ys[i]);
+                dg.addVertex(vertices[i]);
+                parent[i] = i;
+            }
+        }
+
+        int find(int v) {
+            while (parent[v] != v) {
+                parent[v] = parent[parent[v]];
+                v = parent[v];
+            }
+            return v;
+        }
+
+        void connect(int a, int b, double winding) {
+            int length = (int) Math.max(1, Math.round(Math.sqrt(squaredDistance(xs, ys, a, b)) * winding));
+            char type = randomEdgeType();
+            int angle = angle(a, b);
+            String name = "Path " + (edgeId / 2);
+            dg.addEdge(vertices[a], vertices[b], length, name, edgeId++, angle, direction(angle), type);
+            dg.addEdge(vertices[b], vertices[a], length, name, edgeId++, (angle + 180) % 360, direction((angle + 180) % 360), reverse(type));
+            parent[find(a)] = find(b);
+        }
+
+        // joins every component but the largest to the closest vertex outside of whatever it has been
+        // merged into so far. every join merges two sets, so k components need k - 1 joins
+        void connectComponents() {
+            List<List<Integer>> components = components();
+            if (components.size() <= 1) {
+                return;
+            }
+            components.sort(Comparator.comparingInt(List::size));
+            // about two points per cell keeps the ring search short
+            double area = (double) (max(xs) + 1) * (max(ys) + 1);
+            SpatialIndex index = new SpatialIndex(xs, ys, Math.sqrt(2 * area / xs.length));
+
+            for (List<Integer> component : components.subList(0, components.size() - 1)) {
+                int root = find(component.get(0));
+                int bestFrom = -1;
+                int bestTo = -1;
+                long bestDistance = Long.MAX_VALUE;
+                for (int v : component) {
+                    int to = index.nearest(xs, ys, v, u -> find(u) != root);
+                    long d = squaredDistance(xs, ys, v, to);
+                    if (d < bestDistance) {
+                        bestDistance = d;
+                        bestFrom = v;
+                        bestTo = to;
+                    }
+                }
+                connect(bestFrom, bestTo, 1.0);
+            }
+        }
+
+        List<List<Integer>> components() {
+            List<List<Integer>> byRoot = new ArrayList<>();
+            int[] slot = new int[xs.length];
+            Arrays.fill(slot, -1);
+            for (int v = 0; v < xs.length; v++) {
+                int r = find(v);
+                if (slot[r] < 0) {
+                    slot[r] = byRoot.size();
+                    byRoot.add(new ArrayList<>());
+                }
+                byRoot.get(slot[r]).add(v);
+            }
+            return byRoot;
+        }
+
+        // compass angle like the campus map, 0 is north and y grows downwards
+        int angle(int a, int b) {
+            double degrees = Math.toDegrees(Math.atan2(xs[b] - xs[a], -(ys[b] - ys[a])));
+            return (int) Math.round((degrees + 360) % 360) % 360;
+        }
+    }
+
+    private static final String[] DIRECTIONS = { "North", "NE", "East", "SE", "South", "SW", "West", "NW" };
+
+    private static String direction(int angle) {
+        return DIRECTIONS[(int) Math.round(angle / 45.0) % 8];
+    }
+
+    // mostly flat skateable paths, roughly the mix of the campus map
+    private char randomEdgeType() {
+        float p = rng.nextFloat();
+        if (p < 0.45f) return 'F';
+        if (p < 0.60f) return 'U';
+        if (p < 0.70f) return 'f';
+        if (p < 0.80f) return 'u';
+        if (p < 0.92f) return 's';
+        return 'b';
+    }
+
+    private static char reverse(char type) {
+        switch (type) {
+            case 'U': return 'D';
+            case 'D': return 'U';
+            case 'u': return 'd';
+            case 'd': return 'u';
+            case 's': return 't';
+            case 't': return 's';
+            default: return type;
+        }
+    }
+
+    // writes the graph in the format GraphBuilder.buildGraphFromFiles reads
+    public static void writeFiles(Digraph dg, File vertexFile, File edgeFile) throws FileNotFoundException {
+        Vertex[] vertices = dg.vertexSet().toArray(new Vertex[0]);
+        Arrays.sort(vertices, Comparator.comparingInt(Vertex::hashCode));
+        try (PrintWriter vf = new PrintWriter(vertexFile); PrintWriter ef = new PrintWriter(edgeFile)) {
+            vf.println("// Generated map vertices.");
+            vf.println("// Vertex format is: # label x y name");
+            ef.println("// Generated map edges.");
+            ef.println("// Edge format is: # label1 label2 v1 v2 length, angle, direction (C) name");
+            for (Vertex v : vertices) {
+                vf.println(v.hashCode() + " " + v.getLabel() + " " + v.getX() + " " + v.getY() + " \"" + v + "\"");
+                for (Edge e : dg.neighboringEdges(v)) {
+                    ef.println(e.hashCode() + " " + e.getSrc().getLabel() + " " + e.getDst().getLabel() + " " + e.getSrc().hashCode() + " " + e.getDst().hashCode()
+                            + " " + e.getLength() + " " + e.getAngle() + " " + e.getDirection() + " (" + e.getEdgeType() + ") \"" + e + "\"");
+                }
+            }
+        }
+    }
+}
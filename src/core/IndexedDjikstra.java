@@ -0,0 +1,251 @@
+package core;
+
+import static core.Digraph.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import core.Utils.Metric;
+
+// djikstra on the dense indices of a csr graph, with all state in primitive arrays. one instance
+// is a reusable workspace for one thread, scores and back pointers are only valid for vertices the
+// heap has seen in the current search so nothing is cleared between searches
+public class IndexedDjikstra {
+
+    // point to point search modes. A_STAR is guided by the straight line distance to the finish,
+    // BIDIRECTIONAL also searches backwards from the finish over the incoming edges
+    public enum Mode { DJIKSTRA, A_STAR, BIDIRECTIONAL }
+
+    private final CsrGraph g;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] sources;
+    private final IndexedHeap heap;
+    private final int[] scores;
+    private final int[] backPointers; // csr edge index, -1 for the start vertex
+
+    // backward half of bidirectional searches, created on first use
+    private IndexedHeap backwardHeap;
+    private int[] backwardScores;
+    private int[] forwardPointers; // first edge on the path to the finish, -1 for the finish
+
+    // set by a bidirectional search: the edge where both halves meet, the finish and the path cost
+    private int meetEdge = -1;
+    private int meetFinish = -1;
+    private int meetScore;
+
+    public IndexedDjikstra(CsrGraph g) {
+        this.g = g;
+        offsets = g.offsets();
+        targets = g.targets();
+        sources = g.sources();
+        int n = g.numVertices();
+        heap = new IndexedHeap(n);
+        scores = new int[n];
+        backPointers = new int[n];
+    }
+
+    public Path shortestPath(Vertex start, Vertex finish, Metric metric) {
+        return shortestPath(start, finish, metric, Mode.DJIKSTRA);
+    }
+
+    public Path shortestPath(Vertex start, Vertex finish, Metric metric, Mode mode) {
+        int finishIndex = g.indexOf(finish);
+        search(g.indexOf(start), finishIndex, metric, mode);
+        return pathTo(finishIndex);
+    }
+
+    // runs until every reachable vertex is settled, afterwards any destination can be queried
+    public void shortestPathTree(int start, Metric metric) {
+        search(start, -1, metric);
+    }
+
+    // returns the cost from start to finish (Integer.MAX_VALUE if unreachable), afterwards
+    // pathTo and scoreOf can be queried for the finish
+    public int search(int start, int finish, Metric metric, Mode mode) {
+        switch (mode) {
+            case A_STAR: return searchAStar(start, finish, metric);
+            case BIDIRECTIONAL: return searchBidirectional(start, finish, metric);
+            default: return search(start, finish, metric);
+        }
+    }
+
+    // stops as soon as finish is settled, returns its score (Integer.MAX_VALUE if unreachable)
+    public int search(int start, int finish, Metric metric) {
+        int[] costs = g.costs(metric);
+        begin(start);
+        while (!heap.isEmpty()) {
+            int score = heap.minKey();
+            int v = heap.popMin();
+            if (v == finish) {
+                break;
+            }
+            for (int e = offsets[v], end = offsets[v + 1]; e < end; e++) {
+                int w = targets[e];
+                int newScore = score + costs[e];
+                if (!heap.seen(w)) {
+                    scores[w] = newScore;
+                    backPointers[w] = e;
+                    heap.insert(w, newScore);
+                } else if (heap.contains(w) && heap.decreaseKey(w, newScore)) {
+                    scores[w] = newScore;
+                    backPointers[w] = e;
+                }
+            }
+        }
+        return scoreOf(finish);
+    }
+
+    // same as search, but the heap is keyed by score plus a lower bound on the rest of the way.
+    // the bound is consistent, so every vertex is still settled at most once
+    public int searchAStar(int start, int finish, Metric metric) {
+        int[] costs = g.costs(metric);
+        begin(start);
+        while (!heap.isEmpty()) {
+            int v = heap.popMin();
+            if (v == finish) {
+                break;
+            }
+            int score = scores[v];
+            for (int e = offsets[v], end = offsets[v + 1]; e < end; e++) {
+                int w = targets[e];
+                int newScore = score + costs[e];
+                if (!heap.seen(w)) {
+                    scores[w] = newScore;
+                    backPointers[w] = e;
+                    heap.insert(w, newScore + g.lowerBound(metric, w, finish));
+                } else if (heap.contains(w) && newScore < scores[w]) {
+                    scores[w] = newScore;
+                    backPointers[w] = e;
+                    heap.decreaseKey(w, newScore + g.lowerBound(metric, w, finish));
+                }
+            }
+        }
+        return scoreOf(finish);
+    }
+
+    // alternates between a forward search from start and a backward one from finish, always
+    // expanding the side with the smaller key. every edge that reaches a vertex labeled by the
+    // other side is a candidate, and once the two smallest keys add up to the best candidate
+    // nothing shorter can be left
+    public int searchBidirectional(int start, int finish, Metric metric) {
+        if (backwardHeap == null) {
+            int n = g.numVertices();
+            backwardHeap = new IndexedHeap(n);
+            backwardScores = new int[n];
+            forwardPointers = new int[n];
+        }
+        int[] costs = g.costs(metric);
+        int[] inOffsets = g.inOffsets();
+        int[] inEdges = g.inEdges();
+
+        begin(start);
+        backwardHeap.reset();
+        backwardHeap.insert(finish, 0);
+        backwardScores[finish] = 0;
+        forwardPointers[finish] = -1;
+
+        int best = start == finish ? 0 : Integer.MAX_VALUE;
+        int bestEdge = -1;
+        while (!heap.isEmpty() && !backwardHeap.isEmpty() && (long) heap.minKey() + backwardHeap.minKey() < best) {
+            if (heap.minKey() <= backwardHeap.minKey()) {
+                int score = heap.minKey();
+                int v = heap.popMin();
+                for (int e = offsets[v], end = offsets[v + 1]; e < end; e++) {
+                    int w = targets[e];
+                    int newScore = score + costs[e];
+                    if (!heap.seen(w)) {
+                        scores[w] = newScore;
+                        backPointers[w] = e;
+                        heap.insert(w, newScore);
+                    } else if (heap.contains(w) && heap.decreaseKey(w, newScore)) {
+                        scores[w] = newScore;
+                        backPointers[w] = e;
+                    }
+                    if (backwardHeap.seen(w) && (long) newScore + backwardScores[w] < best) {
+                        best = newScore + backwardScores[w];
+                        bestEdge = e;
+                    }
+                }
+            } else {
+                int score = backwardHeap.minKey();
+                int w = backwardHeap.popMin();
+                for (int i = inOffsets[w], end = inOffsets[w + 1]; i < end; i++) {
+                    int e = inEdges[i];
+                    int v = sources[e];
+                    int newScore = score + costs[e];
+                    if (!backwardHeap.seen(v)) {
+                        backwardScores[v] = newScore;
+                        forwardPointers[v] = e;
+                        backwardHeap.insert(v, newScore);
+                    } else if (backwardHeap.contains(v) && backwardHeap.decreaseKey(v, newScore)) {
+                        backwardScores[v] = newScore;
+                        forwardPointers[v] = e;
+                    }
+                    if (heap.seen(v) && (long) scores[v] + newScore < best) {
+                        best = scores[v] + newScore;
+                        bestEdge = e;
+                    }
+                }
+            }
+        }
+        meetEdge = bestEdge;
+        meetFinish = finish;
+        meetScore = best;
+        return best;
+    }
+
+    private void begin(int start) {
+        meetEdge = -1;
+        meetFinish = -1;
+        heap.reset();
+        heap.insert(start, 0);
+        scores[start] = 0;
+        backPointers[start] = -1;
+    }
+
+    public boolean reached(int v) {
+        return v >= 0 && (heap.seen(v) || (v == meetFinish && meetScore != Integer.MAX_VALUE));
+    }
+
+    public int scoreOf(int v) {
+        if (v >= 0 && v == meetFinish) {
+            return meetScore;
+        }
+        return reached(v) ? scores[v] : Integer.MAX_VALUE;
+    }
+
+    // last edge on the path to v, -1 for the start vertex or if v was not reached
+    public int backPointerOf(int v) {
+        if (v >= 0 && v == meetFinish && meetEdge >= 0) {
+            int e = meetEdge;
+            while (forwardPointers[targets[e]] >= 0) {
+                e = forwardPointers[targets[e]];
+            }
+            return e;
+        }
+        return reached(v) && heap.seen(v) ? backPointers[v] : -1;
+    }
+
+    public Path pathTo(int v) {
+        List<Edge> path = new ArrayList<Edge>();
+        int last = v;
+        if (v >= 0 && v == meetFinish) {
+            if (meetEdge < 0) { // unreachable, or start and finish are the same
+                return new Path(path);
+            }
+            // the backward half from the meeting edge to the finish, reversed like the rest
+            for (int e = meetEdge; e >= 0; e = forwardPointers[targets[e]]) {
+                path.add(g.edge(e));
+            }
+            Collections.reverse(path);
+            last = sources[meetEdge];
+        }
+        for (int e = backPointerOf(last); e >= 0; e = backPointers[sources[e]]) {
+            path.add(g.edge(e));
+        }
+        Collections.reverse(path);
+        return new Path(path);
+    }
+}
@@ -0,0 +1,113 @@
+package core;
+
+import java.util.Arrays;
+
+// 4-ary min heap over vertex indices 0..n-1 with int keys. the slot of every vertex is tracked so
+// keys can be decreased in place, and keys sit next to the vertices so sifting never looks anything
+// up elsewhere. a vertex only counts as seen if it was stamped in the current epoch, which makes
+// reset O(1) instead of clearing n positions between searches
+public class IndexedHeap {
+
+    private final int[] heap;      // vertex in every slot
+    private final int[] keys;      // key of the vertex in every slot
+    private final int[] positions; // slot of every vertex, -1 once popped
+    private final int[] stamps;    // epoch in which every vertex was last inserted
+    private int epoch = 1;
+    private int size;
+
+    public IndexedHeap(int n) {
+        heap = new int[n];
+        keys = new int[n];
+        positions = new int[n];
+        stamps = new int[n];
+    }
+
+    public void reset() {
+        size = 0;
+        if (++epoch == 0) { // wrapped around, old stamps could look current again
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+
+    // inserted since the last reset, popped or not
+    public boolean seen(int v) { return stamps[v] == epoch; }
+
+    public boolean contains(int v) { return stamps[v] == epoch && positions[v] >= 0; }
+
+    public int minKey() { return keys[0]; }
+
+    public void insert(int v, int key) {
+        stamps[v] = epoch;
+        siftUp(size++, v, key);
+    }
+
+    // lowers the key of v if key is smaller, v must be in the heap
+    public boolean decreaseKey(int v, int key) {
+        int i = positions[v];
+        if (key >= keys[i]) {
+            return false;
+        }
+        siftUp(i, v, key);
+        return true;
+    }
+
+    public int popMin() {
+        int min = heap[0];
+        positions[min] = -1;
+        if (--size > 0) {
+            siftDown(0, heap[size], keys[size]);
+        }
+        return min;
+    }
+
+    // moves the hole at i up until v fits, then puts v there
+    private void siftUp(int i, int v, int key) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 2;
+            if (keys[parent] <= key) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        place(i, v, key);
+    }
+
+    private void siftDown(int i, int v, int key) {
+        while (true) {
+            int first = (i << 2) + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + 4, size);
+            int child = first;
+            for (int c = first + 1; c < last; c++) {
+                if (keys[c] < keys[child]) {
+                    child = c;
+                }
+            }
+            if (keys[child] >= key) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        place(i, v, key);
+    }
+
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        keys[to] = keys[from];
+        positions[heap[to]] = to;
+    }
+
+    private void place(int i, int v, int key) {
+        heap[i] = v;
+        keys[i] = key;
+        positions[v] = i;
+    }
+}
@@ -0,0 +1,175 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import core.Colony.Parameters;
+import core.Colony.Tour;
+
+// island model: independent colonies on the same (read-only) shortest paths, each with its own
+// pheromones, ants and thread. every migrationInterval iterations an island looks at the best tour
+// of all islands and at its neighbour in the ring, on its own schedule: nobody waits for anybody,
+// so a slow island only delays itself
+public class Islands implements AutoCloseable {
+
+    private final List<Colony> colonies = new ArrayList<>();
+    private final boolean multithreaded;
+
+    private int migrationInterval = 10;
+    private float migrationAmount = 1f;
+    private float blend = 0f;
+    private boolean verbose = true; // learn prints every island's best once per migration
+
+    // best tour over all islands, replaced (never modified) whenever one of them finds a better one
+    private volatile Tour best;
+
+    // numIslands colonies of numAnts ants each. every island gets its own seed split off parameters.seed,
+    // and unless parameters set a thread count the cores are divided evenly between the islands
+    public Islands(ShortestPaths shortestPaths, Parameters parameters, int numIslands, int numAnts) {
+        Rng seeds = new Rng(parameters.seed());
+        int threads = parameters.threads() > 0 ? parameters.threads()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / numIslands);
+        multithreaded = threads > 1;
+        for (int i = 0; i < numIslands; i++) {
+            Parameters p = parameters.withSeed(seeds.nextLong()).withExecutor(parameters.executor(), threads, parameters.chunkSize());
+            Colony colony = new Colony(shortestPaths, p);
+            colony.setVerbose(false);
+            colony.addAnts(numAnts);
+            colonies.add(colony);
+        }
+    }
+
+    // how often (in iterations of each island) islands migrate, and how much pheromone the best tour of
+    // all islands deposits on an island that takes it (0 to only share the tour without depositing)
+    public void setMigration(int interval, float amount) {
+        migrationInterval = Math.max(1, interval);
+        migrationAmount = amount;
+    }
+
+    // share of the way every island moves its pheromones towards its neighbour's on migration, 0 for none
+    public void setBlend(float blend) {
+        this.blend = blend;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    public List<Colony> getColonies() {
+        return colonies;
+    }
+
+    public Tour getBestTour() {
+        return best;
+    }
+
+    // runs every island on its own thread until the limits are hit and returns the best tour. iteration
+    // limits count per island, stagnation counts iterations of an island without a better tour anywhere
+    public Tour learn(SolveLimits limits) throws InterruptedException {
+        long deadline = limits.timeBudgetMillis() > 0 ? System.currentTimeMillis() + limits.timeBudgetMillis() : Long.MAX_VALUE;
+        CancellationToken stop = new CancellationToken();
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < colonies.size(); i++) {
+            int island = i;
+            Thread t = new Thread(() -> run(island, limits, deadline, stop), "island-" + i);
+            t.setUncaughtExceptionHandler((thread, e) -> {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+                stop.cancel();
+            });
+            threads.add(t);
+            t.start();
+        }
+        try {
+            for (Thread t : threads) {
+                t.join();
+            }
+        } finally {
+            stop.cancel();
+        }
+        if (!failures.isEmpty()) {
+            throw new IllegalStateException("island failed", failures.get(0));
+        }
+        return best;
+    }
+
+    private void run(int island, SolveLimits limits, long deadline, CancellationToken stop) {
+        Colony colony = colonies.get(island);
+        Colony neighbour = colonies.get((island + 1) % colonies.size());
+        int done = 0;
+        int lastImprovement = 0;
+        int lastBestLength = Integer.MAX_VALUE;
+        while (!stop.isCancelled()) {
+            int iterations = migrationInterval;
+            if (limits.maxIterations() != SolveLimits.UNLIMITED) {
+                iterations = Math.min(iterations, limits.maxIterations() - done);
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (iterations <= 0 || remaining <= 0 || (limits.cancellation() != null && limits.cancellation().isCancelled())) {
+                break;
+            }
+            int before = colony.getIteration();
+            SolveLimits epoch = SolveLimits.iterations(iterations).withTargetLength(limits.targetLength()).withCancellation(stop);
+            if (deadline != Long.MAX_VALUE) {
+                epoch = epoch.withTimeBudget(remaining);
+            }
+            colony.learn(epoch, multithreaded, null, 1);
+            done += colony.getIteration() - before;
+
+            // publish, then migrate whatever is best overall into this island
+            Tour mine = colony.getBestTour();
+            Tour global = publish(mine);
+            if (global != mine) {
+                colony.offerTour(global, migrationAmount);
+            }
+            if (verbose) {
+                System.out.println("island " + island + ", " + colony.getIteration() + ": " + mine.getLength() + " (best " + global.getLength() + ")");
+            }
+            if (blend > 0f && neighbour != colony) {
+                colony.blendPheromones(neighbour, blend);
+            }
+
+            if (global.getLength() < lastBestLength) {
+                lastBestLength = global.getLength();
+                lastImprovement = done;
+            }
+            if ((limits.targetLength() > 0 && global.getLength() <= limits.targetLength())
+                    || (limits.stagnation() > 0 && done - lastImprovement >= limits.stagnation())) {
+                stop.cancel();
+            }
+        }
+    }
+
+    private synchronized Tour publish(Tour tour) {
+        if (best == null || tour.getLength() < best.getLength()) {
+            best = tour;
+        }
+        return best;
+    }
+
+    // repairs the shared shortest paths once and adjusts every island to the change, between calls to learn
+    public void updateGraph(Digraph dg) {
+        BitSet changed = colonies.get(0).updateGraph(dg);
+        for (int i = 1; i < colonies.size(); i++) {
+            colonies.get(i).graphChanged(changed);
+        }
+        Tour global = null;
+        for (Colony colony : colonies) {
+            Tour t = colony.getBestTour();
+            if (t != null && (global == null || t.getLength() < global.getLength())) {
+                global = t;
+            }
+        }
+        best = global;
+    }
+
+    @Override
+    public void close() {
+        for (Colony colony : colonies) {
+            colony.close();
+        }
+    }
+}
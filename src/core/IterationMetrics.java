@@ -0,0 +1,10 @@
+package core;
+
+// what Colony.learn reports to a MetricsSink after every iteration. lengths are tour costs,
+// entropy is the mean over all vertices of the entropy (in nats) of their normalized pheromone
+// row, branching the mean lambda-branching factor with lambda 0.05. both are NaN if skipped.
+// allocatedBytes is -1 where the jvm can't measure it
+public record IterationMetrics(int iteration, int bestLength, int iterationBestLength, double meanLength, int worstLength,
+                               double entropy, double branching, long wanderNanos, long localSearchNanos, long updateNanos,
+                               long displayNanos, double antsPerSecond, long allocatedBytes) {
+}
@@ -0,0 +1,228 @@
+package core;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// 2-opt and or-opt improvement of ant tours. a tour is first expanded to the order in which it visits
+// every vertex, so moving vertices around can never leave one out. moves are only tried towards the
+// nearest neighbors of a vertex, and the improved order is compressed back to the vertices that are
+// not already passed on the way to an earlier one
+public class LocalSearch {
+
+    private final int neighbors;
+    private final int topK;
+    private final int maxPasses;
+
+    // topK <= 0 improves every new tour, otherwise only the k best tours of each iteration
+    public LocalSearch(int neighbors, int topK) {
+        this(neighbors, topK, 20);
+    }
+
+    public LocalSearch(int neighbors, int topK, int maxPasses) {
+        this.neighbors = neighbors;
+        this.topK = topK;
+        this.maxPasses = maxPasses;
+    }
+
+    public int neighbors() { return neighbors; }
+    public int topK() { return topK; }
+    public int maxPasses() { return maxPasses; }
+
+    // k nearest other vertices of every vertex by shortest path cost, n * k flat
+    int[] neighborLists(ShortestPaths sp) {
+        int n = sp.size();
+        int k = Math.min(neighbors, n - 1);
+        int[] lists = new int[n * Math.max(k, 0)];
+        IntStream.range(0, n).parallel().forEach(a -> {
+            long[] sorted = new long[n - 1];
+            int i = 0;
+            for (int b = 0; b < n; b++) {
+                if (b != a) {
+                    sorted[i++] = ((long) sp.cost(a, b) << 32) | b;
+                }
+            }
+            Arrays.sort(sorted);
+            for (i = 0; i < k; i++) {
+                lists[a * k + i] = (int) sorted[i];
+            }
+        });
+        return lists;
+    }
+
+    // scratch buffers for one worker
+    static class Workspace {
+        final int[] tour;
+        final int[] position;
+        final long[] forward;  // forward[i] = cost of tour[0] -> ... -> tour[i]
+        final long[] backward; // the same walked in reverse direction on every leg
+        final int[] leg;
+        final boolean[] seen;
+
+        Workspace(int n) {
+            tour = new int[n + 1];
+            position = new int[n];
+            forward = new long[n + 1];
+            backward = new long[n + 1];
+            leg = new int[n];
+            seen = new boolean[n];
+        }
+    }
+
+    // improves the closed tour given by keyVertices[0..numKeyVertices) (first == last) in place,
+    // returns the new number of key vertices, the new length is the sum of its leg costs
+    int improve(ShortestPaths sp, int[] neighborLists, int[] keyVertices, int numKeyVertices, Workspace ws) {
+        int n = sp.size();
+        int m = expand(sp, keyVertices, numKeyVertices, ws);
+        if (m < 4) {
+            return numKeyVertices;
+        }
+        int k = neighborLists.length / n;
+
+        for (int pass = 0; pass < maxPasses; pass++) {
+            boolean improved = twoOpt(sp, neighborLists, k, m, ws);
+            improved |= orOpt(sp, neighborLists, k, m, ws);
+            if (!improved) {
+                break;
+            }
+        }
+
+        return compress(sp, m, keyVertices, ws);
+    }
+
+    // first visit order of all vertices, tour[m] == tour[0]
+    private int expand(ShortestPaths sp, int[] keyVertices, int numKeyVertices, Workspace ws) {
+        Arrays.fill(ws.seen, false);
+        int m = 0;
+        ws.tour[m++] = keyVertices[0];
+        ws.seen[keyVertices[0]] = true;
+        for (int i = 0; i < numKeyVertices - 1; i++) {
+            int a = keyVertices[i];
+            int legLength = 0;
+            for (int v = keyVertices[i + 1]; v != a; v = sp.predecessor(a, v)) {
+                ws.leg[legLength++] = v;
+            }
+            for (int j = legLength - 1; j >= 0; j--) {
+                int v = ws.leg[j];
+                if (!ws.seen[v]) {
+                    ws.seen[v] = true;
+                    ws.tour[m++] = v;
+                }
+            }
+        }
+        ws.tour[m] = ws.tour[0];
+        return m;
+    }
+
+    private void index(ShortestPaths sp, int m, Workspace ws) {
+        int[] t = ws.tour;
+        ws.forward[0] = 0;
+        ws.backward[0] = 0;
+        for (int i = 0; i < m; i++) {
+            ws.position[t[i]] = i;
+            ws.forward[i + 1] = ws.forward[i] + sp.cost(t[i], t[i + 1]);
+            ws.backward[i + 1] = ws.backward[i] + sp.cost(t[i + 1], t[i]);
+        }
+    }
+
+    // reversing tour[i+1..j] replaces the legs t[i] -> t[i+1] and t[j] -> t[j+1] by t[i] -> t[j] and t[i+1] -> t[j+1].
+    // costs aren't symmetric, so the reversed section is priced with the backward prefix sums
+    private boolean twoOpt(ShortestPaths sp, int[] neighborLists, int k, int m, Workspace ws) {
+        int[] t = ws.tour;
+        boolean improvedAny = false;
+        index(sp, m, ws);
+        for (int i = 0; i < m - 1; i++) {
+            for (int x = 0; x < k; x++) {
+                int c = neighborLists[t[i] * k + x];
+                int j = ws.position[c];
+                // the neighbor lists are sorted, nothing further away can shorten the leg out of t[i]
+                if (sp.cost(t[i], c) >= sp.cost(t[i], t[i + 1])) {
+                    break;
+                }
+                if (j <= i + 1) {
+                    continue;
+                }
+                long delta = (long) sp.cost(t[i], t[j]) + sp.cost(t[i + 1], t[j + 1]) - sp.cost(t[i], t[i + 1]) - sp.cost(t[j], t[j + 1])
+                        + (ws.backward[j] - ws.backward[i + 1]) - (ws.forward[j] - ws.forward[i + 1]);
+                if (delta < 0) {
+                    reverse(t, i + 1, j);
+                    index(sp, m, ws);
+                    improvedAny = true;
+                    break;
+                }
+            }
+        }
+        return improvedAny;
+    }
+
+    // moves a section of 1 to 3 vertices, keeping its direction, to right after a near neighbor of its first vertex
+    private boolean orOpt(ShortestPaths sp, int[] neighborLists, int k, int m, Workspace ws) {
+        int[] t = ws.tour;
+        boolean improvedAny = false;
+        index(sp, m, ws);
+        for (int length = 1; length <= 3; length++) {
+            for (int i = 1; i + length <= m; i++) {
+                int first = t[i];
+                int last = t[i + length - 1];
+                int before = t[i - 1];
+                int after = t[i + length];
+                long removed = (long) sp.cost(before, first) + sp.cost(last, after) - sp.cost(before, after);
+                for (int x = 0; x < k; x++) {
+                    int p = ws.position[neighborLists[first * k + x]];
+                    if (p >= i - 1 && p < i + length) {
+                        continue;
+                    }
+                    long delta = (long) sp.cost(t[p], first) + sp.cost(last, t[p + 1]) - sp.cost(t[p], t[p + 1]) - removed;
+                    if (delta < 0) {
+                        move(t, i, length, p, ws.leg);
+                        index(sp, m, ws);
+                        improvedAny = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return improvedAny;
+    }
+
+    private static void reverse(int[] t, int from, int to) {
+        while (from < to) {
+            int tmp = t[from];
+            t[from++] = t[to];
+            t[to--] = tmp;
+        }
+    }
+
+    // moves t[i..i+length) to right after position p
+    private static void move(int[] t, int i, int length, int p, int[] scratch) {
+        System.arraycopy(t, i, scratch, 0, length);
+        if (p > i) {
+            System.arraycopy(t, i + length, t, i, p - i - length + 1);
+            System.arraycopy(scratch, 0, t, p - length + 1, length);
+        } else {
+            System.arraycopy(t, p + 1, t, p + 1 + length, i - p - 1);
+            System.arraycopy(scratch, 0, t, p + 1, length);
+        }
+    }
+
+    // drops every vertex already passed on the shortest path to an earlier kept one. by the triangle
+    // inequality that never makes the tour longer, and every vertex is still visited in order
+    private int compress(ShortestPaths sp, int m, int[] keyVertices, Workspace ws) {
+        int[] t = ws.tour;
+        Arrays.fill(ws.seen, false);
+        int num = 0;
+        keyVertices[num++] = t[0];
+        ws.seen[t[0]] = true;
+        for (int i = 1; i <= m; i++) {
+            int v = t[i];
+            if (i < m && ws.seen[v]) {
+                continue;
+            }
+            int a = keyVertices[num - 1];
+            for (int u = v; u != a; u = sp.predecessor(a, u)) {
+                ws.seen[u] = true;
+            }
+            keyVertices[num++] = v;
+        }
+        return num;
+    }
+}
@@ -0,0 +1,70 @@
+package core;
+
+// max-min ant system: only the iteration best tour (or every globalBestPeriod iterations the best tour
+// so far) deposits, and every entry is kept within [tauMin, tauMax]
+public class MaxMinAntSystem extends Strategy {
+
+    private final float pBest;
+    private final int globalBestPeriod;
+
+    public MaxMinAntSystem() {
+        this(0.05f, 5);
+    }
+
+    // pBest is the chance of rebuilding the best tour once the pheromones have converged
+    public MaxMinAntSystem(float pBest, int globalBestPeriod) {
+        this.pBest = pBest;
+        this.globalBestPeriod = globalBestPeriod;
+    }
+
+    @Override
+    public float[] settings() {
+        return new float[] { pBest, globalBestPeriod };
+    }
+
+    @Override
+    public Strategy withSettings(float[] settings) {
+        return new MaxMinAntSystem(settings[0], (int) settings[1]);
+    }
+
+    // a depositing tour adds 1 per iteration, so with rho of every entry surviving evaporation
+    // the entries of a tour that keeps winning converge to 1 / (1 - rho)
+    public float tauMax(Colony colony) {
+        return 1f / (1f - colony.getParameters().rho());
+    }
+
+    public float tauMin(Colony colony) {
+        int n = colony.size();
+        double root = Math.pow(pBest, 1.0 / n);
+        double avg = Math.max(1.0, n / 2.0 - 1.0);
+        return (float)(tauMax(colony) * (1.0 - root) / (avg * root));
+    }
+
+    @Override
+    public float initialPheromone(Colony colony) {
+        return tauMax(colony);
+    }
+
+    @Override
+    public void evaporate(Colony colony, float[] pheromones, int from, int to) {
+        float rho = colony.getParameters().rho();
+        float tauMin = tauMin(colony);
+        for (int i = from; i < to; i++) {
+            pheromones[i] = Math.max(tauMin, rho * pheromones[i]);
+        }
+    }
+
+    @Override
+    public float depositAmounts(Colony colony, int[] lengths, int numTours, int bestLength, float[] amounts) {
+        boolean globalBest = globalBestPeriod > 0 && colony.getIteration() % globalBestPeriod == 0;
+        for (int i = 0; i < numTours; i++) {
+            amounts[i] = i == 0 && !globalBest ? 1f : 0f;
+        }
+        return globalBest ? 1f : 0f;
+    }
+
+    @Override
+    public float deposit(Colony colony, float tau, float amount) {
+        return Math.min(tauMax(colony), tau + amount);
+    }
+}
@@ -0,0 +1,78 @@
+package core;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+// writes one line of IterationMetrics per iteration, as csv with a header or as json lines.
+// timings are written in milliseconds
+public class MetricsSink implements Closeable {
+
+    public enum Format { CSV, JSONL }
+
+    private static final String[] COLUMNS = { "iteration", "bestLength", "iterationBestLength", "meanLength", "worstLength",
+            "entropy", "branching", "wanderMillis", "localSearchMillis", "updateMillis", "displayMillis", "antsPerSecond",
+            "allocatedBytes" };
+
+    private final PrintWriter out;
+    private final Format format;
+
+    public MetricsSink(File file, Format format) throws IOException {
+        this.format = format;
+        out = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+        if (format == Format.CSV) {
+            out.println(String.join(",", COLUMNS));
+        }
+    }
+
+    // picks the format from the extension, json lines for .jsonl and .json, csv otherwise
+    public static MetricsSink open(File file) throws IOException {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return new MetricsSink(file, name.endsWith(".jsonl") || name.endsWith(".json") ? Format.JSONL : Format.CSV);
+    }
+
+    public synchronized void record(IterationMetrics m) {
+        Object[] values = { m.iteration(), m.bestLength(), m.iterationBestLength(), m.meanLength(), m.worstLength(),
+                m.entropy(), m.branching(), millis(m.wanderNanos()), millis(m.localSearchNanos()), millis(m.updateNanos()),
+                millis(m.displayNanos()), m.antsPerSecond(), m.allocatedBytes() };
+        StringBuilder line = new StringBuilder(format == Format.JSONL ? "{" : "");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            if (format == Format.JSONL) {
+                line.append('"').append(COLUMNS[i]).append("\":");
+            }
+            line.append(format(values[i]));
+        }
+        if (format == Format.JSONL) {
+            line.append('}');
+        }
+        out.println(line);
+        out.flush();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private String format(Object value) {
+        if (value instanceof Double) {
+            double d = (Double) value;
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                return format == Format.JSONL ? "null" : "";
+            }
+            return String.format(Locale.ROOT, "%.4f", d);
+        }
+        return value.toString();
+    }
+
+    @Override
+    public synchronized void close() {
+        out.close();
+    }
+}
@@ -37,17 +37,11 @@ public abstract class MinHeap<T> {
 		if(isLeaf(idx)) return;
         int r = right(idx);
         int l = left(idx);
-		if(score(heap.get(idx)) > score(heap.get(l))) {
-			if(score(heap.get(r)) < score(heap.get(l))) {
-				swap(idx, r);
-				percDown(r);
-			} else {
-				swap(idx, l);
-				percDown(l);
-			}
-		} else if(score(heap.get(idx)) > score(heap.get(r))) {
-			swap(idx, r);
-			percDown(r);
+        // a node can have a left child only
+        int min = (r < heap.size() && score(heap.get(r)) < score(heap.get(l))) ? r : l;
+		if(score(heap.get(idx)) > score(heap.get(min))) {
+			swap(idx, min);
+			percDown(min);
 		}
 	}
 
@@ -65,7 +59,7 @@ public abstract class MinHeap<T> {
 	protected int parent(int idx) { return (idx - 1) / 2; }
 
 	protected boolean isLeaf(int idx) {
-		return right(idx) >= heap.size();
+		return left(idx) >= heap.size();
 	}
 
 	protected void swap(int a, int b) {
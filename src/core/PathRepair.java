@@ -0,0 +1,163 @@
+package core;
+
+import java.util.Arrays;
+
+import core.Utils.Metric;
+
+// repairs one row of the all-pairs matrices after edges changed, instead of rerunning djikstra for
+// the source. vertices whose tree path used a removed or more expensive edge are cut off and
+// reconnected through their cheapest incoming edge from the rest of the tree, then every vertex that
+// got cheaper (reconnected, or behind a cheaper or new edge) is pushed through the new graph in score
+// order. one instance is a reusable workspace for one thread
+class PathRepair {
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int n;
+    private final IndexedHeap heap;
+    private final int[] marks;   // the affected or clean mark of the current repair, anything else is unknown
+    private final int[] stack;
+    private final int[] before;  // costs of the row before the repair
+    private int epoch;
+
+    PathRepair(int n) {
+        this.n = n;
+        heap = new IndexedHeap(n);
+        marks = new int[n];
+        stack = new int[n];
+        before = new int[n];
+    }
+
+    // invalid are edges of the old graph that were removed or got more expensive, improved are edges
+    // of the new graph that are new or got cheaper. remap takes old edge indices to new ones, -1 for
+    // removed edges. predecessors of row a are remapped in place. returns the vertices whose cost
+    // changed, empty if none, and sets rerouted[a] if the row needed more than remapping
+    int[] repair(int a, CsrGraph old, CsrGraph next, int[] remap, int[] invalid, int[] improved, Metric metric,
+                 int[] costs, int[] predecessors, boolean[] rerouted) {
+        int base = a * n;
+
+        // cut off the subtrees below invalid tree edges, found by their old indices
+        int affected = nextMarks();
+        int clean = affected + 1;
+        boolean cut = false;
+        for (int e : invalid) {
+            int t = old.target(e);
+            if (t != a && predecessors[base + t] == e) {
+                marks[t] = affected;
+                cut = true;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            int p = predecessors[base + v];
+            if (p >= 0) {
+                predecessors[base + v] = remap[p];
+            }
+        }
+
+        int[] c = next.costs(metric);
+        boolean shorter = false;
+        for (int i = 0; i < improved.length && !cut && !shorter; i++) {
+            int u = next.source(improved[i]);
+            shorter = costs[base + u] != UNREACHABLE && (long) costs[base + u] + c[improved[i]] < costs[base + next.target(improved[i])];
+        }
+        if (!cut && !shorter) {
+            return new int[0];
+        }
+        System.arraycopy(costs, base, before, 0, n);
+        heap.reset();
+
+        if (cut) {
+            // a vertex is affected if the first marked vertex on its way up the tree is affected
+            marks[a] = clean;
+            for (int v = 0; v < n; v++) {
+                int depth = 0;
+                int u = v;
+                while (marks[u] != affected && marks[u] != clean) {
+                    int p = predecessors[base + u];
+                    if (p < 0) { // unreachable so far
+                        marks[u] = clean;
+                        break;
+                    }
+                    stack[depth++] = u;
+                    u = next.source(p);
+                }
+                int mark = marks[u];
+                while (depth > 0) {
+                    marks[stack[--depth]] = mark;
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                if (marks[v] == affected) {
+                    costs[base + v] = UNREACHABLE;
+                    predecessors[base + v] = -1;
+                }
+            }
+            // reconnect every affected vertex through its cheapest edge from the clean part
+            for (int v = 0; v < n; v++) {
+                if (marks[v] != affected) {
+                    continue;
+                }
+                for (int i = next.firstInEdge(v), end = next.endInEdge(v); i < end; i++) {
+                    int e = next.inEdge(i);
+                    int u = next.source(e);
+                    if (marks[u] == clean && costs[base + u] != UNREACHABLE && costs[base + u] + c[e] < costs[base + v]) {
+                        costs[base + v] = costs[base + u] + c[e];
+                        predecessors[base + v] = e;
+                    }
+                }
+                if (costs[base + v] != UNREACHABLE) {
+                    heap.insert(v, costs[base + v]);
+                }
+            }
+        }
+
+        for (int e : improved) {
+            int u = next.source(e);
+            int v = next.target(e);
+            if (costs[base + u] != UNREACHABLE && (long) costs[base + u] + c[e] < costs[base + v]) {
+                relax(base, v, costs[base + u] + c[e], e, costs, predecessors);
+            }
+        }
+
+        // everything pushed got cheaper, so only paths through it can improve
+        while (!heap.isEmpty()) {
+            int score = heap.minKey();
+            int v = heap.popMin();
+            for (int e = next.firstEdge(v), end = next.endEdge(v); e < end; e++) {
+                int w = next.target(e);
+                if (score + c[e] < costs[base + w]) {
+                    relax(base, w, score + c[e], e, costs, predecessors);
+                }
+            }
+        }
+
+        rerouted[a] = true;
+        int num = 0;
+        for (int v = 0; v < n; v++) {
+            if (costs[base + v] != before[v]) {
+                stack[num++] = v;
+            }
+        }
+        return Arrays.copyOf(stack, num);
+    }
+
+    private void relax(int base, int v, int score, int e, int[] costs, int[] predecessors) {
+        costs[base + v] = score;
+        predecessors[base + v] = e;
+        if (heap.contains(v)) {
+            heap.decreaseKey(v, score);
+        } else {
+            heap.insert(v, score); // again if it was popped before
+        }
+    }
+
+    // two fresh mark values per repair, so marks never have to be cleared
+    private int nextMarks() {
+        epoch += 2;
+        if (epoch < 0) {
+            Arrays.fill(marks, 0);
+            epoch = 2;
+        }
+        return epoch;
+    }
+}
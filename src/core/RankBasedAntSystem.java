@@ -0,0 +1,54 @@
+package core;
+
+// rank-based ant system: only the w-1 best tours of the iteration deposit, weighted by their rank,
+// and the best tour so far deposits with weight w
+public class RankBasedAntSystem extends Strategy {
+
+    private final int w;
+
+    public RankBasedAntSystem() {
+        this(6);
+    }
+
+    public RankBasedAntSystem(int w) {
+        if (w < 1) throw new IllegalArgumentException("w must be at least 1");
+        this.w = w;
+    }
+
+    @Override
+    public float[] settings() {
+        return new float[] { w };
+    }
+
+    @Override
+    public Strategy withSettings(float[] settings) {
+        return new RankBasedAntSystem((int) settings[0]);
+    }
+
+    @Override
+    public float initialPheromone(Colony colony) {
+        return 1f;
+    }
+
+    @Override
+    public void evaporate(Colony colony, float[] pheromones, int from, int to) {
+        float rho = colony.getParameters().rho();
+        for (int i = from; i < to; i++) {
+            pheromones[i] *= rho;
+        }
+    }
+
+    @Override
+    public int rankedTours() {
+        return w - 1;
+    }
+
+    @Override
+    public float depositAmounts(Colony colony, int[] lengths, int numTours, int bestLength, float[] amounts) {
+        float Q = colony.getParameters().Q();
+        for (int i = 0; i < numTours; i++) {
+            amounts[i] = i < w - 1 ? (w - 1 - i) * (float)Math.pow(bestLength / (float)lengths[i], Q) : 0f;
+        }
+        return w;
+    }
+}
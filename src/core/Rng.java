@@ -0,0 +1,64 @@
+package core;
+
+// splitmix64 generator (the algorithm behind java.util.SplittableRandom) with its state exposed,
+// so every ant can own an independent stream derived from one master seed and the state can be saved
+public class Rng {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private long seed;
+    private final long gamma;
+
+    public Rng(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    public Rng(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    public long seed() { return seed; }
+    public long gamma() { return gamma; }
+
+    // a new generator whose stream is independent of this one
+    public Rng split() {
+        return new Rng(mix64(nextSeed()), mixGamma(nextSeed()));
+    }
+
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    // uniform in [0, 1)
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    // uniform in [0, 1)
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    // uniform in [0, bound)
+    public int nextInt(int bound) {
+        return (int) ((bound * (nextLong() >>> 33)) >>> 31);
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
@@ -0,0 +1,154 @@
+package core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import core.Utils.Metric;
+
+// on-disk cache of the shortest path matrices, keyed by the contents of the graph files and the metric.
+// not by the engine, both engines give the same matrices.
+// file layout: magic, version, n, number of edges, metric ordinal, 32 byte key, n*n costs, n*n predecessors
+public class ShortestPathCache {
+
+    private static final int MAGIC = 0x414e5453; // "ANTS"
+    private static final int VERSION = 2; // 1 could hold paths from the broken MinHeap
+    private static final int HEADER_BYTES = 5 * Integer.BYTES + 32;
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    public static ShortestPaths load(Digraph dg, Metric metric, File vertexFile, File edgeFile, boolean includeDebug, File cacheDir) throws IOException {
+        byte[] key = key(vertexFile, edgeFile, includeDebug, metric);
+        Path cacheFile = cacheDir.toPath().resolve(hex(key) + ".sp");
+
+        if (Files.isRegularFile(cacheFile)) {
+            ShortestPaths sp = read(dg, metric, key, cacheFile);
+            if (sp != null) {
+                return sp;
+            }
+        }
+
+        ShortestPaths sp = new ShortestPaths(dg, metric);
+        try {
+            write(sp, key, cacheFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return sp;
+    }
+
+    // returns null if the file doesn't match the graph
+    private static ShortestPaths read(Digraph dg, Metric metric, byte[] key, Path cacheFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                return null;
+            }
+            // only the header is mapped, the matrices are read in chunks since they can pass 2 GB
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            int n = buffer.getInt();
+            int numEdges = buffer.getInt();
+            int metricOrdinal = buffer.getInt();
+            byte[] fileKey = new byte[key.length];
+            buffer.get(fileKey);
+            if (n != dg.numVertices() || numEdges != dg.numEdges() || metricOrdinal != metric.ordinal() || !Arrays.equals(key, fileKey)
+                    || channel.size() != HEADER_BYTES + 2L * n * n * Integer.BYTES) {
+                return null;
+            }
+
+            int[] costs = new int[n * n];
+            int[] predecessors = new int[n * n];
+            ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES);
+            channel.position(HEADER_BYTES);
+            readInts(channel, chunk, costs);
+            readInts(channel, chunk, predecessors);
+            return new ShortestPaths(new CsrGraph(dg), metric, costs, predecessors);
+        }
+    }
+
+    private static void write(ShortestPaths sp, byte[] key, Path cacheFile) throws IOException {
+        int n = sp.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(sp.numEdges()).putInt(sp.metric().ordinal()).put(key);
+        header.flip();
+
+        // write to a temporary file first so a crash never leaves a truncated cache behind
+        Files.createDirectories(cacheFile.getParent());
+        Path tmp = Files.createTempFile(cacheFile.getParent(), "sp", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+                // the matrices go out in chunks, 2 * n * n ints don't fit one buffer for large graphs
+                ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES);
+                writeInts(channel, chunk, sp.costs());
+                writeInts(channel, chunk, sp.predecessors());
+            }
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer chunk, int[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int num = Math.min(values.length - from, chunk.capacity() / Integer.BYTES);
+            chunk.clear();
+            chunk.asIntBuffer().put(values, from, num);
+            chunk.limit(num * Integer.BYTES);
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+            from += num;
+        }
+    }
+
+    private static void readInts(FileChannel channel, ByteBuffer chunk, int[] values) throws IOException {
+        for (int from = 0; from < values.length; ) {
+            int num = Math.min(values.length - from, chunk.capacity() / Integer.BYTES);
+            chunk.clear();
+            chunk.limit(num * Integer.BYTES);
+            while (chunk.hasRemaining()) {
+                if (channel.read(chunk) < 0) {
+                    throw new IOException("cache file ends early");
+                }
+            }
+            chunk.flip();
+            chunk.asIntBuffer().get(values, from, num);
+            from += num;
+        }
+    }
+
+    private static byte[] key(File vertexFile, File edgeFile, boolean includeDebug, Metric metric) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Files.readAllBytes(vertexFile.toPath()));
+            digest.update((byte) 0);
+            digest.update(Files.readAllBytes(edgeFile.toPath()));
+            digest.update((byte) (includeDebug ? 1 : 0));
+            digest.update(metric.name().getBytes());
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder s = new StringBuilder();
+        for (byte b : bytes) {
+            s.append(String.format("%02x", b));
+        }
+        return s.toString();
+    }
+}
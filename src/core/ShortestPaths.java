@@ -0,0 +1,375 @@
+package core;
+
+import static core.Digraph.*;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import core.Utils.Metric;
+
+// all-pairs shortest paths between densely indexed vertices, stored as flat row-major arrays.
+// only the cost and the last edge of every path is kept, the edges themselves are
+// rebuilt by walking the predecessors back from the destination
+public class ShortestPaths {
+
+    // which djikstra fills the matrices, both give the same costs but may pick different paths on ties
+    public enum Engine { DJIKSTRA, INDEXED_HEAP }
+
+    private final int n;
+    private CsrGraph graph; // replaced by update
+    private final Metric metric;
+
+    private final int[] costs;
+    private final int[] predecessors; // edge index in the csr graph, -1 on the diagonal. null on a subset
+
+    // set for a subset of the vertices, see subset(). vertex i here is waypoints[i] in the graph,
+    // waypointPredecessors holds the last waypoint before b on the path from a to b (a if none) and
+    // waypointRows the predecessor edges of the whole graph from every waypoint, rows of graph size
+    private final int[] waypoints;
+    private final int[] waypointPredecessors;
+    private final int[] waypointRows;
+
+    // see pathBits(), built on first use
+    private static final long PATH_BITS_LIMIT = 256L << 20;
+    private long[] pathBits;
+    private boolean pathBitsBuilt;
+
+    public ShortestPaths(Digraph dg, Metric metric) {
+        this(new CsrGraph(dg), metric);
+    }
+
+    public ShortestPaths(CsrGraph graph, Metric metric) {
+        this(graph, metric, Engine.INDEXED_HEAP);
+    }
+
+    public ShortestPaths(CsrGraph graph, Metric metric, Engine engine) {
+        this(graph, metric, engine, null, null);
+    }
+
+    // costs and predecessors are computed if null, otherwise they must belong to the same
+    // graph since edge indices depend on the vertex and adjacency order
+    ShortestPaths(CsrGraph graph, Metric metric, int[] costs, int[] predecessors) {
+        this(graph, metric, null, costs, predecessors);
+    }
+
+    private ShortestPaths(CsrGraph graph, Metric metric, Engine engine, int[] costs, int[] predecessors) {
+        this.graph = graph;
+        this.metric = metric;
+        n = graph.numVertices();
+        waypoints = null;
+        waypointPredecessors = null;
+        waypointRows = null;
+
+        if (costs != null) {
+            this.costs = costs;
+            this.predecessors = predecessors;
+            return;
+        }
+        this.costs = new int[n * n];
+        this.predecessors = new int[n * n];
+
+        // one full djikstra per source, sources are spread over the common fork join pool
+        // and every worker thread reuses its own djikstra state
+        if (engine == Engine.DJIKSTRA) {
+            ThreadLocal<Djikstra> workers = ThreadLocal.withInitial(() -> new Djikstra(graph));
+            IntStream.range(0, n).parallel().forEach(a -> {
+                Djikstra dj = workers.get();
+                dj.shortestPathTree(graph.vertex(a), metric);
+                this.predecessors[a * n + a] = -1;
+                for (int b = 0; b < n; b++) {
+                    if (a != b) {
+                        this.costs[a * n + b] = dj.scoreOf(graph.vertex(b));
+                        this.predecessors[a * n + b] = dj.backPointerIndexOf(graph.vertex(b));
+                    }
+                }
+            });
+        } else {
+            ThreadLocal<IndexedDjikstra> workers = ThreadLocal.withInitial(() -> new IndexedDjikstra(graph));
+            IntStream.range(0, n).parallel().forEach(a -> {
+                IndexedDjikstra dj = workers.get();
+                dj.shortestPathTree(a, metric);
+                for (int b = 0; b < n; b++) {
+                    this.costs[a * n + b] = dj.scoreOf(b);
+                    this.predecessors[a * n + b] = dj.backPointerOf(b);
+                }
+            });
+        }
+    }
+
+    // the paths between the given vertices only, indexed in the order given. a snapshot: the k * k
+    // costs and the k rows of predecessors it needs are copied out of this matrix, plus a walk along
+    // every path to find the waypoints it passes, and later updates here don't change it. colonies on
+    // a subset only have to visit the waypoints
+    public ShortestPaths subset(int[] waypoints) {
+        return new ShortestPaths(this, waypoints);
+    }
+
+    public ShortestPaths subset(List<Vertex> waypoints) {
+        int[] indices = new int[waypoints.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = indexOf(waypoints.get(i));
+            if (indices[i] < 0) {
+                throw new IllegalArgumentException("waypoint " + waypoints.get(i) + " is not in the graph");
+            }
+        }
+        return subset(indices);
+    }
+
+    private ShortestPaths(ShortestPaths parent, int[] indices) {
+        if (indices.length < 2) {
+            throw new IllegalArgumentException("a subset needs at least two waypoints, got " + indices.length);
+        }
+        graph = parent.graph;
+        metric = parent.metric;
+        n = indices.length;
+        int size = graph.numVertices();
+
+        waypoints = new int[n];
+        waypointRows = new int[n * size];
+        int[] local = new int[size];
+        Arrays.fill(local, -1);
+        for (int i = 0; i < n; i++) {
+            waypoints[i] = parent.graphIndex(indices[i]);
+            if (local[waypoints[i]] >= 0) {
+                throw new IllegalArgumentException("waypoint " + graph.vertex(waypoints[i]) + " is listed twice");
+            }
+            local[waypoints[i]] = i;
+            System.arraycopy(parent.pathRows(), indices[i] * parent.rowLength(), waypointRows, i * size, size);
+        }
+
+        costs = new int[n * n];
+        predecessors = null;
+        waypointPredecessors = new int[n * n];
+        for (int a = 0; a < n; a++) {
+            int ga = waypoints[a];
+            waypointPredecessors[a * n + a] = -1;
+            for (int b = 0; b < n; b++) {
+                if (a == b) {
+                    continue;
+                }
+                costs[a * n + b] = parent.cost(indices[a], indices[b]);
+                int v = waypoints[b];
+                do {
+                    v = graph.source(waypointRows[a * size + v]);
+                } while (v != ga && local[v] < 0);
+                waypointPredecessors[a * n + b] = v == ga ? a : local[v];
+            }
+        }
+    }
+
+    // the predecessor edges of every path are pathRows()[a * rowLength() + v] for the path from
+    // a to the graph vertex v
+    private int graphIndex(int a) { return waypoints == null ? a : waypoints[a]; }
+    private int[] pathRows() { return waypoints == null ? predecessors : waypointRows; }
+    private int rowLength() { return graph.numVertices(); }
+
+    // takes over the edges removed, inserted (addEdge) and reweighted on dg since these paths were
+    // computed or last updated, and repairs only the sources whose tree used a removed or more
+    // expensive edge or that reach a cheaper or new edge sooner than before. returns the pairs
+    // a * n + b whose cost changed. the vertices must stay the same, and if every vertex reached every
+    // other one before it still has to afterwards: such an update is rejected before anything changes.
+    // must not run while colonies on these paths are learning. subsets taken earlier are snapshots and
+    // keep the old costs and paths
+    public synchronized BitSet update(Digraph dg) {
+        if (waypoints != null) {
+            throw new IllegalStateException("update the full shortest paths and take a new subset");
+        }
+        CsrGraph old = graph;
+        CsrGraph next = new CsrGraph(dg);
+        if (next.numVertices() != n) {
+            throw new IllegalArgumentException("graph has " + next.numVertices() + " vertices instead of " + n);
+        }
+        for (int v = 0; v < n; v++) {
+            if (next.id(v) != old.id(v)) {
+                throw new IllegalArgumentException("vertex " + next.vertex(v) + " is not in the old graph");
+            }
+        }
+        int unreachable = next.unreachableVertex();
+        if (unreachable >= 0 && old.unreachableVertex() < 0) {
+            throw new IllegalArgumentException("update would disconnect the graph, " + next.vertex(unreachable)
+                    + " can't reach or be reached from " + next.vertex(0));
+        }
+
+        // match old edges to new ones: the same edge object, or else one with the same id between the
+        // same vertices (a reweighted edge). whatever is left over was removed or inserted
+        Map<Edge, Integer> newIndices = new IdentityHashMap<>();
+        for (int e = 0; e < next.numEdges(); e++) {
+            newIndices.put(next.edge(e), e);
+        }
+        int[] remap = new int[old.numEdges()];
+        boolean[] matched = new boolean[next.numEdges()];
+        for (int e = 0; e < old.numEdges(); e++) {
+            Integer same = newIndices.get(old.edge(e));
+            remap[e] = same == null ? -1 : same;
+            if (same != null) {
+                matched[same] = true;
+            }
+        }
+        int[] oldCosts = old.costs(metric);
+        int[] newCosts = next.costs(metric);
+        IntStream.Builder invalid = IntStream.builder();
+        IntStream.Builder improved = IntStream.builder();
+        for (int e = 0; e < old.numEdges(); e++) {
+            if (remap[e] >= 0) {
+                continue;
+            }
+            for (int f = next.firstEdge(old.source(e)); f < next.endEdge(old.source(e)); f++) {
+                if (!matched[f] && next.target(f) == old.target(e) && next.edge(f).hashCode() == old.edge(e).hashCode()) {
+                    remap[e] = f;
+                    matched[f] = true;
+                    break;
+                }
+            }
+            if (remap[e] < 0 || newCosts[remap[e]] > oldCosts[e]) {
+                invalid.add(e);
+            } else if (newCosts[remap[e]] < oldCosts[e]) {
+                improved.add(remap[e]);
+            }
+        }
+        for (int f = 0; f < next.numEdges(); f++) {
+            if (!matched[f]) {
+                improved.add(f);
+            }
+        }
+        int[] invalidEdges = invalid.build().toArray();
+        int[] improvedEdges = improved.build().toArray();
+
+        // rows are independent, so sources are repaired in parallel like they were computed
+        int[][] changed = new int[n][];
+        boolean[] rerouted = new boolean[n];
+        ThreadLocal<PathRepair> workers = ThreadLocal.withInitial(() -> new PathRepair(n));
+        IntStream.range(0, n).parallel().forEach(a -> changed[a] = workers.get().repair(a, old, next, remap, invalidEdges,
+                improvedEdges, metric, costs, predecessors, rerouted));
+        graph = next;
+
+        BitSet pairs = new BitSet(n * n);
+        for (int a = 0; a < n; a++) {
+            for (int b : changed[a]) {
+                pairs.set(a * n + b);
+            }
+        }
+        if (pathBits != null) {
+            int words = (n + 63) >>> 6;
+            IntStream.range(0, n).parallel().filter(a -> rerouted[a]).forEach(a -> fillPathBits(pathBits, a, words));
+        }
+        return pairs;
+    }
+
+    // a pair a * n + b without a path from a to b, -1 if there is a path between every pair
+    public int unreachablePair() {
+        if (waypoints == null) {
+            int v = graph.unreachableVertex();
+            if (v < 0) {
+                return -1;
+            }
+            return cost(0, v) == Integer.MAX_VALUE ? v : v * n;
+        }
+        for (int i = 0; i < n * n; i++) {
+            if (costs[i] == Integer.MAX_VALUE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int size() { return n; }
+    public Vertex vertex(int i) { return graph.vertex(waypoints == null ? i : waypoints[i]); }
+
+    // index of the vertex here, -1 if there is none
+    public int indexOf(Vertex vertex) {
+        int v = graph.indexOf(vertex);
+        if (waypoints == null || v < 0) {
+            return v;
+        }
+        for (int i = 0; i < n; i++) {
+            if (waypoints[i] == v) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    public Metric metric() { return metric; }
+    public CsrGraph graph() { return graph; }
+    public int numEdges() { return graph.numEdges(); }
+
+    int[] costs() { return costs; }
+
+    // the vertices of the shortest path from a to b, excluding a, as a bitset of (n + 63) / 64 longs at
+    // (a * n + b) * words. read-only, shared by every colony on these paths. null if it would take more
+    // than PATH_BITS_LIMIT bytes
+    synchronized long[] pathBits() {
+        if (!pathBitsBuilt) {
+            int words = (n + 63) >>> 6;
+            if ((long) n * n * words * Long.BYTES <= PATH_BITS_LIMIT) {
+                long[] bits = new long[n * n * words];
+                IntStream.range(0, n).parallel().forEach(a -> fillPathBits(bits, a, words));
+                pathBits = bits;
+            }
+            pathBitsBuilt = true;
+        }
+        return pathBits;
+    }
+
+    private void fillPathBits(long[] bits, int a, int words) {
+        Arrays.fill(bits, a * n * words, (a + 1) * n * words, 0L);
+        for (int b = 0; b < n; b++) {
+            int offset = (a * n + b) * words;
+            for (int v = b; v != a && costs[a * n + v] != Integer.MAX_VALUE; v = predecessor(a, v)) {
+                bits[offset + (v >>> 6)] |= 1L << v;
+            }
+        }
+    }
+    int[] predecessors() { return predecessors; }
+
+    public int cost(int a, int b) {
+        return costs[a * n + b];
+    }
+
+    // the vertex right before b on the shortest path from a to b (a != b). on a subset, the last
+    // waypoint the path passes before b, or a
+    public int predecessor(int a, int b) {
+        if (waypoints != null) {
+            return waypointPredecessors[a * n + b];
+        }
+        return graph.source(predecessors[a * n + b]);
+    }
+
+    // appends the edges of the shortest path from a to b to out, in order
+    public void appendPath(int a, int b, List<Edge> out) {
+        int[] rows = pathRows();
+        int base = a * rowLength();
+        int start = out.size();
+        for (int v = graphIndex(b), ga = graphIndex(a); v != ga; v = graph.source(rows[base + v])) {
+            out.add(graph.edge(rows[base + v]));
+        }
+        Collections.reverse(out.subList(start, out.size()));
+    }
+
+    // number of edges on the shortest path from a to b
+    public int numPathEdges(int a, int b) {
+        int[] rows = pathRows();
+        int base = a * rowLength();
+        int num = 0;
+        for (int v = graphIndex(b), ga = graphIndex(a); v != ga; v = graph.source(rows[base + v])) {
+            num++;
+        }
+        return num;
+    }
+
+    // writes the csr edge indices of the shortest path from a to b into out starting at pos,
+    // in order, and returns the position after the last one
+    public int appendPathEdges(int a, int b, int[] out, int pos) {
+        int[] rows = pathRows();
+        int base = a * rowLength();
+        int end = pos + numPathEdges(a, b);
+        for (int v = graphIndex(b), ga = graphIndex(a), i = end; v != ga; v = graph.source(rows[base + v])) {
+            out[--i] = rows[base + v];
+        }
+        return end;
+    }
+}
@@ -0,0 +1,47 @@
+package core;
+
+// when Colony.learn stops: after maxIterations, once timeBudgetMillis have passed, after stagnation
+// iterations without a better tour, once a tour of at most targetLength is found, or when cancelled.
+// maxIterations is UNLIMITED for no iteration limit, a negative count runs no iterations. every other
+// limit <= 0 (or a null token) is ignored. limits are checked between iterations
+public record SolveLimits(int maxIterations, long timeBudgetMillis, int stagnation, int targetLength, CancellationToken cancellation) {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    public SolveLimits {
+        maxIterations = Math.max(maxIterations, 0);
+    }
+
+    public static SolveLimits iterations(int maxIterations) {
+        return new SolveLimits(maxIterations, 0, 0, 0, null);
+    }
+
+    // runs until stopped by one of the other limits
+    public static SolveLimits unlimited() {
+        return new SolveLimits(UNLIMITED, 0, 0, 0, null);
+    }
+
+    public static SolveLimits timeBudget(long timeBudgetMillis) {
+        return new SolveLimits(UNLIMITED, timeBudgetMillis, 0, 0, null);
+    }
+
+    public SolveLimits withMaxIterations(int maxIterations) {
+        return new SolveLimits(maxIterations, timeBudgetMillis, stagnation, targetLength, cancellation);
+    }
+
+    public SolveLimits withTimeBudget(long timeBudgetMillis) {
+        return new SolveLimits(maxIterations, timeBudgetMillis, stagnation, targetLength, cancellation);
+    }
+
+    public SolveLimits withStagnation(int stagnation) {
+        return new SolveLimits(maxIterations, timeBudgetMillis, stagnation, targetLength, cancellation);
+    }
+
+    public SolveLimits withTargetLength(int targetLength) {
+        return new SolveLimits(maxIterations, timeBudgetMillis, stagnation, targetLength, cancellation);
+    }
+
+    public SolveLimits withCancellation(CancellationToken cancellation) {
+        return new SolveLimits(maxIterations, timeBudgetMillis, stagnation, targetLength, cancellation);
+    }
+}
@@ -0,0 +1,75 @@
+package core;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// flight recorder events of Colony.learn. every phase event is committed once per iteration,
+// so they are cheap enough to leave registered. record with -XX:StartFlightRecording
+public class SolverEvents {
+
+    @Name("ants.Wander")
+    @Label("Wander")
+    @Category("Ants")
+    @Description("Tour construction by every ant that is not an elite of the last iteration")
+    public static class Wander extends Event {
+        @Label("Iteration")
+        int iteration;
+
+        @Label("Ants")
+        int ants;
+    }
+
+    @Name("ants.LocalSearch")
+    @Label("Local Search")
+    @Category("Ants")
+    @Description("2-opt / Or-opt improvement of the new tours")
+    public static class LocalSearch extends Event {
+        @Label("Iteration")
+        int iteration;
+    }
+
+    @Name("ants.PheromoneUpdate")
+    @Label("Pheromone Update")
+    @Category("Ants")
+    @Description("Ranking the tours, evaporation and deposits")
+    public static class PheromoneUpdate extends Event {
+        @Label("Iteration")
+        int iteration;
+
+        @Label("Tours")
+        int tours;
+    }
+
+    @Name("ants.Iteration")
+    @Label("Iteration")
+    @Category("Ants")
+    @Description("One whole iteration of the colony, including the display update")
+    public static class Iteration extends Event {
+        @Label("Iteration")
+        int iteration;
+
+        @Label("Best Length")
+        int bestLength;
+
+        @Label("Iteration Best Length")
+        int iterationBestLength;
+
+        @Label("Mean Length")
+        double meanLength;
+
+        @Label("Worst Length")
+        int worstLength;
+
+        @Label("Ants per Second")
+        @Description("Tours constructed per second of the wander phase")
+        double antsPerSecond;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    }
+}
@@ -0,0 +1,49 @@
+package core;
+
+// construction and pheromone update rules of an ACO variant. implementations must be stateless,
+// the same instance can be shared by several colonies
+public abstract class Strategy {
+
+    // value every pheromone entry starts at
+    public abstract float initialPheromone(Colony colony);
+
+    // picks the next vertex for an ant standing at currentVertex, by default a weighted random choice
+    public int chooseNextVertex(Colony colony, Colony.Ant ant, int currentVertex) {
+        return ant.rouletteChoice(currentVertex);
+    }
+
+    // called after an ant moved from a to b, e.g. for a local pheromone update
+    public void afterMove(Colony colony, int a, int b) {}
+
+    // applied to every pheromone entry once per iteration, in blocks of the flat pheromone array
+    public abstract void evaporate(Colony colony, float[] pheromones, int from, int to);
+
+    // how many of the best tours depositAmounts needs in ranked order
+    public int rankedTours() {
+        return 1;
+    }
+
+    // lengths of this iteration's tours, the first rankedTours in ascending order and the rest in
+    // any order, and the length of the best tour found so far.
+    // fills in the amount each tour deposits on its legs (0 to skip it) and returns the amount the
+    // best tour so far deposits
+    public abstract float depositAmounts(Colony colony, int[] lengths, int numTours, int bestLength, float[] amounts);
+
+    // the settings a checkpoint saves, so it can recreate the strategy through the no argument
+    // constructor and withSettings. null if they can't be saved, checkpoints of such a strategy have to
+    // be resumed with parameters
+    public float[] settings() {
+        return null;
+    }
+
+    // a strategy of the same class with settings as returned by settings(). subclasses with settings
+    // of their own have to override both
+    public Strategy withSettings(float[] settings) {
+        throw new UnsupportedOperationException(getClass().getName() + " can't be restored from settings");
+    }
+
+    // combines an entry with one deposit
+    public float deposit(Colony colony, float tau, float amount) {
+        return tau + amount;
+    }
+}
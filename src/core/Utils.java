@@ -20,32 +20,37 @@ public class Utils {
     
     private static final int WALK_SPEED = 272; // feet per minute walking on flat ground
     
+    // edges compute their cost for every metric once when they are created
     public static int computeCost(Digraph.Edge e, Metric metric) {
-        char et = e.getEdgeType();
+        return e.getCost(metric);
+    }
+
+    static int edgeCost(int length, char edgeType, Metric metric) {
+        char et = edgeType;
         switch (metric) {
             case WALK_DISTANCE: // fall through
-            case SKATE_DISTANCE: return e.getLength();
+            case SKATE_DISTANCE: return length;
             case WALK_TIME: et = Character.toLowerCase(et);
             case SKATE_TIME: break;
         }
         switch (et) {
-            case 'F': return (int)(e.getLength() * WALK_SPEED * 2.0);
-            case 'U': return (int)(e.getLength() * WALK_SPEED * 1.1);
-            case 'D': return (int)(e.getLength() * WALK_SPEED * 5.0);
-            case 'f': return (int)(e.getLength() * WALK_SPEED * 1.0);
-            case 'u': return (int)(e.getLength() * WALK_SPEED * 0.9);
-            case 'd': return (int)(e.getLength() * WALK_SPEED * 1.1);
-            case 's': return (int)(e.getLength() * WALK_SPEED * 0.5);
-            case 't': return (int)(e.getLength() * WALK_SPEED * 0.9);
-            case 'b': return (int)(e.getLength() * WALK_SPEED * 1.0);
-            default: throw new IllegalStateException("illegal edge type code '" + e.getEdgeType() + "'");
+            case 'F': return (int)(length * WALK_SPEED * 2.0);
+            case 'U': return (int)(length * WALK_SPEED * 1.1);
+            case 'D': return (int)(length * WALK_SPEED * 5.0);
+            case 'f': return (int)(length * WALK_SPEED * 1.0);
+            case 'u': return (int)(length * WALK_SPEED * 0.9);
+            case 'd': return (int)(length * WALK_SPEED * 1.1);
+            case 's': return (int)(length * WALK_SPEED * 0.5);
+            case 't': return (int)(length * WALK_SPEED * 0.9);
+            case 'b': return (int)(length * WALK_SPEED * 1.0);
+            default: return -1; // no time for this edge type, edges only complain when the cost is asked for
         }
     }
     
     public static int pathCost(List<Digraph.Edge> path, Metric metric) {
         int cost = 0;
         for (Digraph.Edge e : path) {
-            cost += computeCost(e, metric);
+            cost += e.getCost(metric);
         }
         return cost;
     }
@@ -55,42 +60,48 @@ public class Utils {
             PrintWriter uncropped = new PrintWriter(new File("output/uncropped.txt"));
             PrintWriter cropped = new PrintWriter(new File("output/cropped.txt"))
             ) {
-                
-                int mapWidthFeet    = 5521; /*Width in feet of map.*/
-                int mapHeightFeet   = 4369; /*Height in feet of map.*/
-                int mapWidthPixels  = 2528; /*Width in pixels of map.*/
-                int mapHeightPixels = 2000; /*Height in pixels of map.*/
-                
-                int cropLeft = 150; /*Pixels cropped from left of map.*/
-                int cropDown = 125; /*Pixels cropped from top of map.*/
-                
-                int v, w, x, y;
-                int a, b, c, d;
-                
                 for (Digraph.Edge edge : path.edges) {
-                    v = edge.getSrc().getX();
-                    w = edge.getSrc().getY();
-                    x = edge.getDst().getX();
-                    y = edge.getDst().getY();
-                    
-                    a = (int) (v * ((double) mapHeightPixels / mapHeightFeet));
-                    b = (int) (w * ((double) mapWidthPixels  / mapWidthFeet));
-                    c = (int) (x * ((double) mapHeightPixels / mapHeightFeet));
-                    d = (int) (y * ((double) mapWidthPixels  / mapWidthFeet));
-                    
-                    uncropped.println(a + " " + b + " " + c + " " + d);
-                    
-                    a -= cropLeft;
-                    b -= cropDown;
-                    c -= cropLeft;
-                    d -= cropDown;
-
-                    cropped.println(a + " " + b + " " + c + " " + d);
+                    exportSegment(uncropped, cropped, edge.getSrc().getX(), edge.getSrc().getY(), edge.getDst().getX(), edge.getDst().getY());
                 }
-                
             } catch(FileNotFoundException e) { }
         }
-        
+
+    // same as above for a path given as edge indices into a csr graph
+    public static void exportRoute(CsrGraph g, int[] path) {
+        try (PrintWriter uncropped = new PrintWriter(new File("output/uncropped.txt"));
+             PrintWriter cropped = new PrintWriter(new File("output/cropped.txt"))) {
+            for (int e : path) {
+                exportSegment(uncropped, cropped, g.x(g.source(e)), g.y(g.source(e)), g.x(g.target(e)), g.y(g.target(e)));
+            }
+        } catch (FileNotFoundException e) { }
+    }
+
+    private static void exportSegment(PrintWriter uncropped, PrintWriter cropped, int v, int w, int x, int y) {
+        int mapWidthFeet    = 5521; /*Width in feet of map.*/
+        int mapHeightFeet   = 4369; /*Height in feet of map.*/
+        int mapWidthPixels  = 2528; /*Width in pixels of map.*/
+        int mapHeightPixels = 2000; /*Height in pixels of map.*/
+
+        int cropLeft = 150; /*Pixels cropped from left of map.*/
+        int cropDown = 125; /*Pixels cropped from top of map.*/
+
+        int a, b, c, d;
+
+        a = (int) (v * ((double) mapHeightPixels / mapHeightFeet));
+        b = (int) (w * ((double) mapWidthPixels  / mapWidthFeet));
+        c = (int) (x * ((double) mapHeightPixels / mapHeightFeet));
+        d = (int) (y * ((double) mapWidthPixels  / mapWidthFeet));
+
+        uncropped.println(a + " " + b + " " + c + " " + d);
+
+        a -= cropLeft;
+        b -= cropDown;
+        c -= cropLeft;
+        d -= cropDown;
+
+        cropped.println(a + " " + b + " " + c + " " + d);
+    }
+    
         public static void exportAndDisplayRoute(Digraph.Path path) {
             exportRoute(path);
             new Display();
@@ -0,0 +1,84 @@
+package core;
+
+import static core.Digraph.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import core.Colony.Parameters;
+import core.Colony.Tour;
+
+// many tours, each through its own set of waypoints, on one shared all-pairs matrix. a request only
+// copies the k * k costs and k predecessor rows of its waypoints out of the matrix, and its colony keeps a pheromone
+// matrix over those k local indices. tours still come back as paths on the full graph. requests are
+// solved concurrently, one single threaded colony per request
+public class WaypointBatch implements AutoCloseable {
+
+    private final ShortestPaths shortestPaths;
+    private final Parameters parameters;
+    private final int numAnts;
+    private final ExecutorService executor;
+
+    private final Rng seeds;
+
+    // parameters.threads requests run at the same time (every core if <= 0). numAnts per request,
+    // <= 0 for one ant per waypoint
+    public WaypointBatch(ShortestPaths shortestPaths, Parameters parameters, int numAnts) {
+        this.shortestPaths = shortestPaths;
+        this.parameters = parameters.withExecutor(parameters.executor(), 1, parameters.chunkSize());
+        this.numAnts = numAnts;
+        seeds = new Rng(parameters.seed());
+
+        int threads = parameters.threads() > 0 ? parameters.threads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "waypoint-batch-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // every request gets its own seed split off parameters.seed in submission order, so a batch
+    // submitted in the same order gives the same tours
+    public CompletableFuture<Tour> submit(List<Vertex> waypoints, SolveLimits limits) {
+        if (waypoints.size() < 2) {
+            throw new IllegalArgumentException("a tour needs at least two waypoints, got " + waypoints.size());
+        }
+        long seed;
+        synchronized (seeds) {
+            seed = seeds.nextLong();
+        }
+        return CompletableFuture.supplyAsync(() -> solve(waypoints, limits, seed), executor);
+    }
+
+    // solves all requests and returns their tours in the same order
+    public List<Tour> solve(List<List<Vertex>> requests, SolveLimits limits) {
+        List<CompletableFuture<Tour>> futures = new ArrayList<>(requests.size());
+        for (List<Vertex> waypoints : requests) {
+            futures.add(submit(waypoints, limits));
+        }
+        List<Tour> tours = new ArrayList<>(requests.size());
+        for (CompletableFuture<Tour> future : futures) {
+            tours.add(future.join());
+        }
+        return tours;
+    }
+
+    private Tour solve(List<Vertex> waypoints, SolveLimits limits, long seed) {
+        ShortestPaths subset = shortestPaths.subset(waypoints);
+        try (Colony colony = new Colony(subset, parameters.withSeed(seed))) {
+            colony.setVerbose(false);
+            colony.addAnts(numAnts > 0 ? numAnts : subset.size());
+            return colony.learn(limits, false, null, 1);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
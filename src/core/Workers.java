@@ -0,0 +1,93 @@
+package core;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// reusable executor that splits index ranges into chunks
+public class Workers implements AutoCloseable {
+
+    public enum Type {
+        FORK_JOIN, // fixed pool with one worker per thread
+        VIRTUAL    // one virtual thread per chunk, needs a java 21+ runtime
+    }
+
+    @FunctionalInterface
+    public interface Chunk {
+        void run(int from, int to);
+    }
+
+    private final ExecutorService executor;
+    private final int threads;
+    private final int chunkSize;
+
+    // threads <= 0 uses every core, chunkSize <= 0 gives every thread a few chunks to balance uneven work
+    public Workers(Type type, int threads, int chunkSize) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = chunkSize;
+        switch (type) {
+            case FORK_JOIN: executor = new ForkJoinPool(this.threads); break;
+            case VIRTUAL:   executor = newVirtualThreadExecutor(); break;
+            default: throw new IllegalArgumentException("unknown executor type " + type);
+        }
+    }
+
+    public int threads() {
+        return threads;
+    }
+
+    public int chunkSize(int total) {
+        if (chunkSize > 0) {
+            return chunkSize;
+        }
+        return Math.max(1, (total + 4 * threads - 1) / (4 * threads));
+    }
+
+    // runs body over [from, to) in chunks and waits for all of them
+    public void forEachChunk(int from, int to, Chunk body) {
+        int chunk = chunkSize(to - from);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int lo = from; lo < to; lo += chunk) {
+            int start = lo;
+            int end = Math.min(to, lo + chunk);
+            tasks.add(() -> {
+                body.run(start, end);
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> f : executor.invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for workers", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // looked up reflectively so the project still builds and runs on java 17
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("virtual threads need a java 21+ runtime", e);
+        }
+    }
+}
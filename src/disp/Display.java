@@ -4,63 +4,209 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
 import java.awt.Image;
 import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.awt.BasicStroke;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.Timer;
 
+import core.Colony.Tour;
 import core.Digraph.Edge;
 import core.Digraph.Path;
 
-public class Display {
+// the solver only ever drops its latest tour or path into an atomic reference, which costs it nothing.
+// the window polls that reference once per frame and turns it into an immutable frame on the
+// event dispatch thread, so any number of updates between two frames collapse into one, and handing
+// in the same tour again draws nothing. headless displays render the latest tour or path on a
+// background thread and write it out as png
+public class Display implements AutoCloseable {
 
     static final int MAP_WIDTH_FEET    = 5521; // Width in feet of map
     static final int MAP_HEIGHT_FEET   = 4369; // Height in feet of map
     static final int MAP_WIDTH_PIXELS  = 2528; // Width in pixels of map
     static final int MAP_HEIGHT_PIXELS = 2000; // Height in pixels of map
-    
+
     static final int CROP_LEFT = 150; // Pixels cropped from left of map
     static final int CROP_DOWN = 125; // Pixels cropped from top of map
 
-    List<Point> points = new ArrayList<Point>();
-    JFrame frame;
+    static final int FRAME_MILLIS = 33; // at most ~30 frames per second
+
+    static final float SCALE = 0.5f;
+
+    // line segments x1, y1, x2, y2 in pixels of the scaled map, never modified once built
+    private static final class Frame {
+        final int[] segments;
+
+        Frame(Path path) {
+            List<Edge> edges = path.edges;
+            segments = new int[edges.size() * 4];
+            for (int i = 0; i < edges.size(); i++) {
+                Edge e = edges.get(i);
+                Point src = convertCoordinates(e.getSrc().getX(), e.getSrc().getY());
+                Point dst = convertCoordinates(e.getDst().getX(), e.getDst().getY());
+                segments[i * 4] = (int) (src.x * SCALE);
+                segments[i * 4 + 1] = (int) (src.y * SCALE);
+                segments[i * 4 + 2] = (int) (dst.x * SCALE);
+                segments[i * 4 + 3] = (int) (dst.y * SCALE);
+            }
+        }
+    }
+
+    // a Tour or a Path, immutable either way and compared by identity
+    private final AtomicReference<Object> latest = new AtomicReference<>();
+    private final BufferedImage map;
+
+    // windowed
+    private JFrame frame;
+    private MapVisualizerPane pane;
+    private Timer timer;
+
+    // headless
+    private File outputDir;
+    private ExecutorService renderer;
+    private final AtomicBoolean renderPending = new AtomicBoolean();
+    private Object rendered; // only touched by the renderer
+    private int frameNumber;
 
     public Display() {
+        map = loadMap();
+        pane = new MapVisualizerPane();
         frame = new JFrame();
-        frame.add(new MapVisualizerPane(0.5f));
+        frame.add(pane);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.pack();
         frame.setLocationRelativeTo(null);
         frame.setTitle("Path Visualizer");
         frame.setVisible(true);
+
+        timer = new Timer(FRAME_MILLIS, e -> pane.poll());
+        timer.start();
+    }
+
+    private Display(File outputDir) {
+        map = loadMap();
+        this.outputDir = outputDir;
+        outputDir.mkdirs();
+        renderer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "display-renderer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // renders into outputDir/frame-00001.png, frame-00002.png, ... instead of opening a window.
+    // works with java.awt.headless=true
+    public static Display headless(File outputDir) {
+        return new Display(outputDir);
     }
 
-    public static BufferedImage resize(BufferedImage img, int newW, int newH) { 
+    // a window if there is a screen, png frames in outputDir otherwise
+    public static Display open(File outputDir) {
+        return GraphicsEnvironment.isHeadless() ? headless(outputDir) : new Display();
+    }
+
+    // the map, scaled once and converted to an opaque image so every frame is a plain copy
+    private static BufferedImage loadMap() {
+        try {
+            BufferedImage image = ImageIO.read(new File("resources/BrandeisMapLabeledCropped.jpg"));
+            image = Display.resize(image, (int)(image.getWidth() * SCALE), (int)(image.getHeight() * SCALE));
+            BufferedImage opaque = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2d = opaque.createGraphics();
+            g2d.drawImage(image, 0, 0, null);
+            g2d.dispose();
+            return opaque;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        }
+    }
+
+    public static BufferedImage resize(BufferedImage img, int newW, int newH) {
         Image tmp = img.getScaledInstance(newW, newH, Image.SCALE_SMOOTH);
         BufferedImage dimg = new BufferedImage(newW, newH, BufferedImage.TYPE_INT_ARGB);
-    
+
         Graphics2D g2d = dimg.createGraphics();
         g2d.drawImage(tmp, 0, 0, null);
         g2d.dispose();
-    
+
         return dimg;
-    }  
+    }
 
     public void updatePath(Path path) {
-        points.clear();
-        for (Edge e : path.edges) {
-            points.add(convertCoordinates(e.getSrc().getX(), e.getSrc().getY()));
-            points.add(convertCoordinates(e.getDst().getX(), e.getDst().getY()));
+        update(path);
+    }
+
+    // a tour carries its own path, expanded when the tour was made
+    public void updateTour(Tour tour) {
+        update(tour);
+    }
+
+    private void update(Object tourOrPath) {
+        if (latest.getAndSet(tourOrPath) == tourOrPath) {
+            return; // already drawn or about to be
+        }
+        if (renderer != null && renderPending.compareAndSet(false, true)) {
+            renderer.execute(this::renderLatest);
+        }
+    }
+
+    private static Path pathOf(Object tourOrPath) {
+        return tourOrPath instanceof Tour ? ((Tour) tourOrPath).getPath() : (Path) tourOrPath;
+    }
+
+    private void renderLatest() {
+        renderPending.set(false);
+        Object next = latest.get();
+        if (next == null || next == rendered) {
+            return;
+        }
+        rendered = next;
+        BufferedImage image = new BufferedImage(map.getWidth(), map.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        draw(g2d, new Frame(pathOf(next)));
+        g2d.dispose();
+        try {
+            ImageIO.write(image, "png", new File(outputDir, String.format("frame-%05d.png", ++frameNumber)));
+        } catch (IOException ex) { ex.printStackTrace(); }
+    }
+
+    private void draw(Graphics2D g2d, Frame f) {
+        g2d.drawImage(map, 0, 0, null);
+        if (f == null) {
+            return;
+        }
+        g2d.setColor(Color.RED);
+        g2d.setStroke(new BasicStroke(4));
+        int[] s = f.segments;
+        for (int i = 0; i < s.length; i += 4) {
+            g2d.drawLine(s[i], s[i + 1], s[i + 2], s[i + 3]);
+        }
+    }
+
+    // waits for the last headless frame to be written. a window stays open until it is closed
+    @Override
+    public void close() {
+        if (renderer != null) {
+            renderer.shutdown();
+            try {
+                renderer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
-        frame.repaint();
     }
 
     public static Point convertCoordinates(int x, int y) {
@@ -71,37 +217,33 @@ public class Display {
 
     public class MapVisualizerPane extends JPanel {
 
-        private BufferedImage image;
-        private float scale;
-
-        public MapVisualizerPane(float scale) {
-            this.scale = scale;
-            try {
-                image = ImageIO.read(new File("resources/BrandeisMapLabeledCropped.jpg"));
-                image = Display.resize(image, (int)(image.getWidth() * scale), (int)(image.getHeight() * scale));
-            } catch (IOException ex) { ex.printStackTrace(); }
+        // only touched on the event dispatch thread
+        private Object shown;
+        private Frame current;
+
+        // called by the timer, repaints only if a new tour or path came in since the last frame
+        void poll() {
+            Object next = latest.get();
+            if (next != null && next != shown) {
+                shown = next;
+                current = new Frame(pathOf(next));
+                repaint();
+            }
         }
 
         @Override
         public Dimension getPreferredSize() {
-            return new Dimension(image.getWidth(), image.getHeight());
+            return new Dimension(map.getWidth(), map.getHeight());
         }
 
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
             Graphics2D g2d = (Graphics2D) g.create();
-            
-            g2d.drawImage(image, 0, 0, this);
-            
-            g2d.setColor(Color.RED);
-            g2d.setStroke(new BasicStroke(4));
-            for (int i = 0; i < points.size()-1; i+=2) {
-                g2d.drawLine((int)(points.get(i).x * scale), (int)(points.get(i).y * scale), (int)(points.get(i+1).x * scale), (int)(points.get(i+1).y * scale));
-            }
+            draw(g2d, current);
             g2d.dispose();
         }
 
     }
 
-}
\ No newline at end of file
+}
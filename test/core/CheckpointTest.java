@@ -0,0 +1,95 @@
+package core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import core.Colony.Parameters;
+import core.Colony.Tour;
+import core.Utils.Metric;
+
+class CheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    private final ShortestPaths sp = new ShortestPaths(new GraphGenerator(3).grid(49), Metric.WALK_DISTANCE);
+
+    private Parameters parameters(Strategy strategy, LocalSearch localSearch) {
+        return new Parameters(Metric.WALK_DISTANCE, 1f, 0.8f, 0.1f, 3f, 3f, 2).withSeed(17).withExecutor(Workers.Type.FORK_JOIN, 2, 0)
+                .withStrategy(strategy).withLocalSearch(localSearch);
+    }
+
+    private static Colony colony(ShortestPaths sp, Parameters parameters) {
+        Colony colony = new Colony(sp, parameters);
+        colony.setVerbose(false);
+        colony.addAnts(12);
+        return colony;
+    }
+
+    // learning 4 + 4 iterations across a checkpoint file gives the same tours as 8 in one go
+    private void assertResumesExactly(Strategy strategy, LocalSearch localSearch) throws IOException {
+        Parameters parameters = parameters(strategy, localSearch);
+        Tour straight;
+        try (Colony colony = colony(sp, parameters)) {
+            colony.learn(8, false, null, 1);
+            straight = colony.getBestTour();
+        }
+
+        File file = dir.resolve(strategy.getClass().getSimpleName() + ".ckpt").toFile();
+        try (Colony colony = colony(sp, parameters)) {
+            colony.learn(4, false, null, 1);
+            colony.saveCheckpoint(file).join();
+        }
+        Checkpoint checkpoint = Checkpoint.read(file);
+        assertEquals(4, checkpoint.getIteration());
+        Parameters saved = checkpoint.getParameters();
+        assertEquals(parameters, saved.withStrategy(parameters.strategy()).withLocalSearch(parameters.localSearch()));
+        if (localSearch != null) {
+            assertEquals(localSearch.neighbors(), saved.localSearch().neighbors());
+            assertEquals(localSearch.topK(), saved.localSearch().topK());
+            assertEquals(localSearch.maxPasses(), saved.localSearch().maxPasses());
+        }
+        assertArrayEquals(strategy.settings(), saved.strategy().settings());
+
+        try (Colony colony = Colony.resume(sp, checkpoint)) {
+            colony.setVerbose(false);
+            colony.learn(4, false, null, 1);
+            assertEquals(8, colony.getIteration());
+            assertEquals(straight.getLength(), colony.getBestTour().getLength());
+            assertEquals(straight.getIteration(), colony.getBestTour().getIteration());
+            assertEquals(straight.getKeyVertices(), colony.getBestTour().getKeyVertices());
+        }
+    }
+
+    @Test
+    void antSystemResumes() throws IOException {
+        assertResumesExactly(new AntSystem(), null);
+    }
+
+    @Test
+    void maxMinWithLocalSearchResumes() throws IOException {
+        assertResumesExactly(new MaxMinAntSystem(0.1f, 3), new LocalSearch(6, 3, 2));
+    }
+
+    @Test
+    void antColonySystemResumes() throws IOException {
+        assertResumesExactly(new AntColonySystem(0.8f, 0.2f, 0.001f), null);
+    }
+
+    @Test
+    void checkpointNeedsTheSameGraph() throws IOException {
+        File file = dir.resolve("grid.ckpt").toFile();
+        try (Colony colony = colony(sp, parameters(new AntSystem(), null))) {
+            colony.learn(2, false, null, 1);
+            colony.checkpoint().write(file);
+        }
+        ShortestPaths other = new ShortestPaths(new GraphGenerator(3).grid(64), Metric.WALK_DISTANCE);
+        assertThrows(IllegalArgumentException.class, () -> Colony.resume(other, Checkpoint.read(file)));
+    }
+}
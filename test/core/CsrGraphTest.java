@@ -0,0 +1,60 @@
+package core;
+
+import static core.Digraph.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import core.Colony.Parameters;
+import core.Colony.Tour;
+import core.Utils.Metric;
+
+class CsrGraphTest {
+
+    @Test
+    void edgesMatchTheDigraph() {
+        Digraph dg = new GraphGenerator(2).randomGeometric(80, 4);
+        CsrGraph g = new CsrGraph(dg);
+        assertEquals(dg.numVertices(), g.numVertices());
+        assertEquals(dg.numEdges(), g.numEdges());
+
+        for (int v = 0; v < g.numVertices(); v++) {
+            Set<Edge> out = new HashSet<>();
+            for (int e = g.firstEdge(v); e < g.endEdge(v); e++) {
+                Edge edge = g.edge(e);
+                assertSame(g.vertex(v), edge.getSrc());
+                assertSame(edge.getDst(), g.vertex(g.target(e)));
+                assertEquals(v, g.source(e));
+                for (Metric metric : Metric.values()) {
+                    assertEquals(edge.getCost(metric), g.cost(metric, e));
+                }
+                out.add(edge);
+            }
+            assertEquals(dg.neighboringEdges(g.vertex(v)).size(), out.size());
+            for (int i = g.firstInEdge(v); i < g.endInEdge(v); i++) {
+                assertEquals(v, g.target(g.inEdge(i)));
+            }
+        }
+    }
+
+    @Test
+    void tourEdgeIndicesFollowItsPath() {
+        Digraph dg = new GraphGenerator(2).grid(36);
+        Parameters parameters = new Parameters(Metric.WALK_DISTANCE, 1f, 0.8f, 0.1f, 3f, 3f, 2).withSeed(5).withExecutor(Workers.Type.FORK_JOIN, 1, 0);
+        try (Colony colony = new Colony(dg, parameters)) {
+            colony.setVerbose(false);
+            colony.addAnts(8);
+            colony.learn(2, false, null, 1);
+            Tour tour = colony.getBestTour();
+            int[] edges = tour.getPathEdges();
+            CsrGraph g = tour.graph();
+            assertEquals(tour.getPath().edges, g.toPath(edges, edges.length).edges);
+            for (int i = 1; i < edges.length; i++) {
+                assertEquals(g.target(edges[i - 1]), g.source(edges[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package core;
+
+import static core.Digraph.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import core.Utils.Metric;
+
+class DigraphTest {
+
+    // a ring of four vertices with an edge type the time metrics have no speed for
+    private static Digraph ring(char edgeType) {
+        Digraph dg = new Digraph();
+        for (int i = 0; i < 4; i++) {
+            dg.addVertex("v" + i, i, "", 100 * i, 0);
+        }
+        for (int i = 0; i < 4; i++) {
+            Vertex a = dg.getVertex(i);
+            Vertex b = dg.getVertex((i + 1) % 4);
+            dg.addEdge(a, b, 10 + i, "e" + i, 2 * i, 0, "", edgeType);
+            dg.addEdge(b, a, 10 + i, "r" + i, 2 * i + 1, 0, "", edgeType);
+        }
+        return dg;
+    }
+
+    @Test
+    void unknownEdgeTypeOnlyFailsForTimeMetrics() {
+        Digraph dg = ring('x');
+        Edge e = dg.neighboringEdges(dg.getVertex(0)).get(0);
+        assertEquals(10, e.getCost(Metric.WALK_DISTANCE));
+        assertEquals(10, e.getCost(Metric.SKATE_DISTANCE));
+        assertThrows(IllegalStateException.class, () -> e.getCost(Metric.WALK_TIME));
+        assertThrows(IllegalStateException.class, () -> e.getCost(Metric.SKATE_TIME));
+
+        CsrGraph g = new CsrGraph(dg);
+        assertEquals(10, g.cost(Metric.WALK_DISTANCE, g.firstEdge(0)));
+        assertThrows(IllegalStateException.class, () -> g.cost(Metric.WALK_TIME, g.firstEdge(0)));
+        assertThrows(IllegalStateException.class, () -> new ShortestPaths(g, Metric.SKATE_TIME));
+
+        ShortestPaths sp = new ShortestPaths(g, Metric.WALK_DISTANCE);
+        assertEquals(10 + 11, sp.cost(0, 2));
+
+        Path path = new Path(List.of(e));
+        assertEquals(10, path.getLength(Metric.WALK_DISTANCE));
+        assertThrows(IllegalStateException.class, () -> path.getLength(Metric.WALK_TIME));
+    }
+
+    @Test
+    void knownEdgeTypesHaveEveryCost() {
+        Digraph dg = ring('F');
+        Edge e = dg.neighboringEdges(dg.getVertex(0)).get(0);
+        CsrGraph g = new CsrGraph(dg);
+        for (Metric metric : Metric.values()) {
+            assertTrue(e.getCost(metric) > 0);
+            assertEquals(e.getCost(metric), g.cost(metric, g.firstEdge(0)));
+        }
+        assertEquals(2 * e.getCost(Metric.WALK_TIME), e.getCost(Metric.SKATE_TIME));
+    }
+}
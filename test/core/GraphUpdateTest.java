@@ -0,0 +1,71 @@
+package core;
+
+import static core.Digraph.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import core.Colony.Parameters;
+import core.Colony.Tour;
+import core.Utils.Metric;
+
+class GraphUpdateTest {
+
+    private static Parameters parameters() {
+        return new Parameters(Metric.WALK_DISTANCE, 1f, 0.8f, 0.1f, 3f, 3f, 2).withSeed(3).withExecutor(Workers.Type.FORK_JOIN, 1, 0);
+    }
+
+    @Test
+    void tourKeepsItsPathAcrossUpdates() {
+        Digraph dg = new GraphGenerator(5).grid(49);
+        try (Colony colony = new Colony(dg, parameters())) {
+            colony.setVerbose(false);
+            colony.addAnts(8);
+            colony.learn(3, false, null, 1);
+            Tour before = colony.getBestTour();
+            List<Edge> edges = new ArrayList<>(before.getPath().edges);
+
+            // make every edge of the tour more expensive, so all of its paths get repaired
+            Set<Edge> reweighted = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Edge e : edges) {
+                if (reweighted.add(e)) {
+                    dg.reweightEdge(e, e.getLength() * 4 + 10, e.getEdgeType());
+                }
+            }
+            BitSet changed = colony.updateGraph(dg);
+            assertFalse(changed.isEmpty());
+
+            assertEquals(edges, before.getPath().edges);
+            assertEquals(before.getLength(), before.getPath().getLength(Metric.WALK_DISTANCE));
+
+            Tour after = colony.getBestTour();
+            assertNotSame(before, after);
+            assertEquals(after.getLength(), after.getPath().getLength(Metric.WALK_DISTANCE));
+        }
+    }
+
+    @Test
+    void disconnectingUpdateIsRejectedUntouched() {
+        Digraph dg = new GraphGenerator(5).grid(25);
+        ShortestPaths sp = new ShortestPaths(dg, Metric.WALK_DISTANCE);
+        int[] costs = sp.costs().clone();
+        int[] predecessors = sp.predecessors().clone();
+        CsrGraph graph = sp.graph();
+
+        Vertex v = sp.vertex(0);
+        for (Edge e : new ArrayList<>(dg.neighboringEdges(v))) {
+            dg.removeEdge(e);
+        }
+        assertThrows(IllegalArgumentException.class, () -> sp.update(dg));
+        assertArrayEquals(costs, sp.costs());
+        assertArrayEquals(predecessors, sp.predecessors());
+        assertSame(graph, sp.graph());
+    }
+}
@@ -0,0 +1,62 @@
+package core;
+
+import static core.Digraph.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import core.IndexedDjikstra.Mode;
+import core.Utils.Metric;
+
+class IndexedDjikstraTest {
+
+    // every mode finds a path as cheap as the full tree and as the old djikstra, and the path it
+    // hands back actually goes from start to finish
+    private static void assertModesAgree(Digraph dg) {
+        CsrGraph g = new CsrGraph(dg);
+        IndexedDjikstra tree = new IndexedDjikstra(g);
+        IndexedDjikstra search = new IndexedDjikstra(g);
+        Djikstra old = new Djikstra(g);
+        Rng rng = new Rng(3);
+        for (Metric metric : Metric.values()) {
+            for (int q = 0; q < 100; q++) {
+                int start = rng.nextInt(g.numVertices());
+                int finish = rng.nextInt(g.numVertices());
+                tree.shortestPathTree(start, metric);
+                int expected = tree.scoreOf(finish);
+                if (q < 10) {
+                    old.shortestPathTree(g.vertex(start), metric);
+                    assertEquals(expected, old.scoreOf(g.vertex(finish)));
+                }
+                for (Mode mode : Mode.values()) {
+                    String query = mode + " " + metric + " " + start + " -> " + finish;
+                    assertEquals(expected, search.search(start, finish, metric, mode), query);
+                    Path path = search.pathTo(finish);
+                    assertEquals(expected, path.getLength(metric), query);
+                    if (start != finish) {
+                        assertSame(g.vertex(start), path.edges.get(0).getSrc(), query);
+                        assertSame(g.vertex(finish), path.edges.get(path.edges.size() - 1).getDst(), query);
+                    }
+                    for (int i = 1; i < path.edges.size(); i++) {
+                        assertSame(path.edges.get(i - 1).getDst(), path.edges.get(i).getSrc(), query);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void modesAgreeOnAGrid() {
+        assertModesAgree(new GraphGenerator(1).grid(400));
+    }
+
+    @Test
+    void modesAgreeOnRandomGeometric() {
+        assertModesAgree(new GraphGenerator(2).randomGeometric(300, 4));
+    }
+
+    @Test
+    void modesAgreeOnCampus() {
+        assertModesAgree(new GraphGenerator(3).campus(300, 50));
+    }
+}
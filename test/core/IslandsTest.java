@@ -0,0 +1,44 @@
+package core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.Test;
+
+import core.Colony.Parameters;
+import core.Colony.Tour;
+import core.Utils.Metric;
+
+class IslandsTest {
+
+    @Test
+    void islandsReportOncePerMigration() throws InterruptedException {
+        ShortestPaths sp = new ShortestPaths(new GraphGenerator(6).grid(49), Metric.WALK_DISTANCE);
+        Parameters parameters = new Parameters(Metric.WALK_DISTANCE, 1f, 0.8f, 0.1f, 3f, 3f, 2).withSeed(21).withExecutor(Workers.Type.FORK_JOIN, 1, 0);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        Tour best;
+        try (Islands islands = new Islands(sp, parameters, 3, 8)) {
+            islands.setMigration(5, 1f);
+            System.setOut(new PrintStream(bytes, true));
+            try {
+                best = islands.learn(SolveLimits.iterations(10));
+            } finally {
+                System.setOut(out);
+            }
+            for (Colony colony : islands.getColonies()) {
+                assertEquals(10, colony.getIteration());
+                assertTrue(best.getLength() <= colony.getBestTour().getLength());
+            }
+        }
+
+        String[] lines = bytes.toString().trim().split("\\R");
+        assertEquals(3 * 2, lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("island "), line);
+        }
+    }
+}
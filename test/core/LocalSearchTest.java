@@ -0,0 +1,94 @@
+package core;
+
+import static core.Digraph.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import core.Colony.Parameters;
+import core.Utils.Metric;
+
+class LocalSearchTest {
+
+    private static long length(ShortestPaths sp, int[] tour, int num) {
+        long length = 0;
+        for (int i = 0; i < num - 1; i++) {
+            length += sp.cost(tour[i], tour[i + 1]);
+        }
+        return length;
+    }
+
+    private static Set<Vertex> visited(ShortestPaths sp, int[] tour, int num) {
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 0; i < num - 1; i++) {
+            sp.appendPath(tour[i], tour[i + 1], edges);
+        }
+        Set<Vertex> visited = new HashSet<>();
+        visited.add(sp.vertex(tour[0]));
+        for (Edge e : edges) {
+            visited.add(e.getDst());
+        }
+        return visited;
+    }
+
+    // random closed tours through every vertex only get shorter, stay closed and still visit everything
+    private static void assertKeepsEveryVertex(ShortestPaths sp) {
+        int n = sp.size();
+        LocalSearch ls = new LocalSearch(6, 0, 8);
+        int[] neighborLists = ls.neighborLists(sp);
+        LocalSearch.Workspace ws = new LocalSearch.Workspace(n);
+        Rng rng = new Rng(5);
+        for (int t = 0; t < 20; t++) {
+            int[] tour = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                tour[i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                int j = rng.nextInt(i + 1);
+                int swap = tour[i];
+                tour[i] = tour[j];
+                tour[j] = swap;
+            }
+            tour[n] = tour[0];
+            long before = length(sp, tour, n + 1);
+            Set<Vertex> all = visited(sp, tour, n + 1);
+
+            int num = ls.improve(sp, neighborLists, tour, n + 1, ws);
+            assertEquals(tour[0], tour[num - 1]);
+            assertTrue(length(sp, tour, num) <= before);
+            assertEquals(all, visited(sp, tour, num));
+            assertEquals(n, all.size());
+        }
+    }
+
+    @Test
+    void keepsEveryVertexOnAGrid() {
+        assertKeepsEveryVertex(new ShortestPaths(new GraphGenerator(1).grid(64), Metric.WALK_DISTANCE));
+    }
+
+    // time costs differ by direction on slopes, so reversed sections have to be priced the other way
+    @Test
+    void keepsEveryVertexWithAsymmetricCosts() {
+        assertKeepsEveryVertex(new ShortestPaths(new GraphGenerator(2).campus(120, 30), Metric.WALK_TIME));
+    }
+
+    @Test
+    void colonyToursVisitEveryVertex() {
+        ShortestPaths sp = new ShortestPaths(new GraphGenerator(3).grid(49), Metric.WALK_DISTANCE);
+        Parameters parameters = new Parameters(Metric.WALK_DISTANCE, 1f, 0.8f, 0.1f, 3f, 3f, 2).withSeed(9)
+                .withExecutor(Workers.Type.FORK_JOIN, 2, 0).withLocalSearch(new LocalSearch(6, 4, 4));
+        try (Colony colony = new Colony(sp, parameters)) {
+            colony.setVerbose(false);
+            colony.addAnts(16);
+            colony.learn(5, true, null, 1);
+            Set<Vertex> visited = new HashSet<>(List.of(colony.bestPath().vertices()));
+            assertEquals(sp.size(), visited.size());
+            assertEquals(colony.getBestTour().getLength(), colony.bestPath().getLength(Metric.WALK_DISTANCE));
+        }
+    }
+}
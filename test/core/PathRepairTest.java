@@ -0,0 +1,60 @@
+package core;
+
+import static core.Digraph.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import core.Utils.Metric;
+
+class PathRepairTest {
+
+    // random removals, reweights and new edges, repaired rows must match a full recompute
+    @Test
+    void repairMatchesFullRecompute() {
+        Random random = new Random(11);
+        Digraph dg = new GraphGenerator(9).grid(64);
+        ShortestPaths sp = new ShortestPaths(dg, Metric.WALK_DISTANCE);
+        List<Vertex> vertices = new ArrayList<>(dg.vertexSet());
+
+        for (int round = 0; round < 20; round++) {
+            for (int k = 0; k < 4; k++) {
+                Vertex v = vertices.get(random.nextInt(vertices.size()));
+                List<Edge> edges = dg.neighboringEdges(v);
+                Edge e = edges.get(random.nextInt(edges.size()));
+                switch (random.nextInt(3)) {
+                    case 0 -> {
+                        if (edges.size() > 2) {
+                            dg.removeEdge(e);
+                        }
+                    }
+                    case 1 -> dg.reweightEdge(e, 1 + random.nextInt(3 * e.getLength() + 1), e.getEdgeType());
+                    default -> {
+                        Vertex w = vertices.get(random.nextInt(vertices.size()));
+                        if (w != v) {
+                            dg.addEdge(v, w, 1 + random.nextInt(500), "shortcut", -1, 0, "", e.getEdgeType());
+                        }
+                    }
+                }
+            }
+            if (new CsrGraph(dg).unreachableVertex() >= 0) {
+                assertThrows(IllegalArgumentException.class, () -> sp.update(dg));
+                return;
+            }
+            sp.update(dg);
+            ShortestPaths full = new ShortestPaths(dg, Metric.WALK_DISTANCE);
+            assertArrayEquals(full.costs(), sp.costs(), "round " + round);
+            for (int a = 0; a < sp.size(); a++) {
+                for (int b = 0; b < sp.size(); b++) {
+                    List<Edge> path = new ArrayList<>();
+                    sp.appendPath(a, b, path);
+                    assertEquals(sp.cost(a, b), new Path(path).getLength(Metric.WALK_DISTANCE));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import core.Utils.Metric;
+
+class ShortestPathCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private String[] files() {
+        return dir.resolve("cache").toFile().list();
+    }
+
+    @Test
+    void cachedMatricesMatchAFreshComputation() throws IOException {
+        File vertexFile = dir.resolve("vertices.txt").toFile();
+        File edgeFile = dir.resolve("edges.txt").toFile();
+        GraphGenerator.writeFiles(new GraphGenerator(8).grid(49), vertexFile, edgeFile);
+        Digraph dg = GraphBuilder.buildGraphFromFiles(vertexFile, edgeFile, false);
+        File cacheDir = dir.resolve("cache").toFile();
+
+        ShortestPaths computed = ShortestPathCache.load(dg, Metric.WALK_DISTANCE, vertexFile, edgeFile, false, cacheDir);
+        assertEquals(1, files().length);
+        assertTrue(files()[0].endsWith(".sp"), "no temporary file is left behind");
+
+        ShortestPaths cached = ShortestPathCache.load(dg, Metric.WALK_DISTANCE, vertexFile, edgeFile, false, cacheDir);
+        assertArrayEquals(computed.costs(), cached.costs());
+        assertArrayEquals(computed.predecessors(), cached.predecessors());
+
+        // the other engine gives the same matrices, so the cache doesn't tell them apart
+        ShortestPaths djikstra = new ShortestPaths(new CsrGraph(dg), Metric.WALK_DISTANCE, ShortestPaths.Engine.DJIKSTRA);
+        assertArrayEquals(djikstra.costs(), cached.costs());
+
+        // a different metric gets its own file, a truncated file is recomputed and replaced
+        ShortestPathCache.load(dg, Metric.WALK_TIME, vertexFile, edgeFile, false, cacheDir);
+        assertEquals(2, files().length);
+        File file = new File(cacheDir, files()[0]);
+        long size = file.length();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(size / 2);
+        }
+        for (Metric metric : new Metric[] { Metric.WALK_DISTANCE, Metric.WALK_TIME }) {
+            assertArrayEquals(new ShortestPaths(dg, metric).costs(), ShortestPathCache.load(dg, metric, vertexFile, edgeFile, false, cacheDir).costs());
+        }
+        assertEquals(size, file.length());
+        assertEquals(2, files().length);
+    }
+}
@@ -0,0 +1,79 @@
+package core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import core.Colony.Parameters;
+import core.Utils.Metric;
+
+class SolveLimitsTest {
+
+    private static Colony colony() {
+        Digraph dg = new GraphGenerator(1).grid(36);
+        Parameters p = new Parameters(Metric.WALK_DISTANCE, 1f, 0.8f, 0.1f, 3f, 3f, 2).withSeed(7).withExecutor(Workers.Type.FORK_JOIN, 1, 0);
+        Colony colony = new Colony(dg, p);
+        colony.setVerbose(false);
+        colony.addAnts(8);
+        return colony;
+    }
+
+    @Test
+    void zeroIterationsReturnAtOnce() {
+        try (Colony colony = colony()) {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> colony.learn(0, false, null, 1));
+            assertEquals(0, colony.getIteration());
+            assertNull(colony.getBestTour());
+        }
+    }
+
+    @Test
+    void negativeIterationsReturnAtOnce() {
+        try (Colony colony = colony()) {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> colony.learn(-3, false, null, 1));
+            assertEquals(0, colony.getIteration());
+            assertEquals(0, SolveLimits.iterations(-3).maxIterations());
+        }
+    }
+
+    @Test
+    void iterationsKeepCountingAcrossCalls() {
+        try (Colony colony = colony()) {
+            colony.learn(3, false, null, 1);
+            assertEquals(3, colony.getIteration());
+            colony.learn(2, false, null, 1);
+            assertEquals(5, colony.getIteration());
+        }
+    }
+
+    @Test
+    void unlimitedStopsOnStagnation() {
+        try (Colony colony = colony()) {
+            assertTimeoutPreemptively(Duration.ofSeconds(30),
+                    () -> colony.learn(SolveLimits.unlimited().withStagnation(5), false, null, 1));
+            assertTrue(colony.getIteration() >= 5);
+            assertEquals(colony.getBestTour().getIteration() + 5, colony.getIteration());
+        }
+    }
+
+    @Test
+    void cancelledTokenStopsAfterOneIteration() {
+        try (Colony colony = colony()) {
+            CancellationToken token = new CancellationToken();
+            token.cancel();
+            assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> colony.learn(SolveLimits.unlimited().withCancellation(token), false, null, 1));
+            assertEquals(1, colony.getIteration());
+        }
+    }
+
+    @Test
+    void targetLengthStops() {
+        try (Colony colony = colony()) {
+            colony.learn(SolveLimits.unlimited().withTargetLength(Integer.MAX_VALUE - 1), false, null, 1);
+            assertEquals(1, colony.getIteration());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package core;
+
+import static core.Digraph.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import core.Colony.Parameters;
+import core.Colony.Tour;
+import core.Utils.Metric;
+
+class WaypointBatchTest {
+
+    private final Digraph dg = new GraphGenerator(4).grid(64);
+    private final ShortestPaths sp = new ShortestPaths(dg, Metric.WALK_DISTANCE);
+
+    private static Parameters parameters() {
+        return new Parameters(Metric.WALK_DISTANCE, 1f, 0.8f, 0.1f, 3f, 3f, 2).withSeed(13).withExecutor(Workers.Type.FORK_JOIN, 2, 0);
+    }
+
+    @Test
+    void subsetNeedsTwoDistinctWaypoints() {
+        assertThrows(IllegalArgumentException.class, () -> sp.subset(new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> sp.subset(new int[] { 5 }));
+        assertThrows(IllegalArgumentException.class, () -> sp.subset(new int[] { 5, 9, 5 }));
+    }
+
+    @Test
+    void subsetCostsAndPathsMatchTheFullMatrix() {
+        int[] waypoints = { 3, 40, 17, 60, 8 };
+        ShortestPaths subset = sp.subset(waypoints);
+        assertEquals(waypoints.length, subset.size());
+        for (int a = 0; a < waypoints.length; a++) {
+            assertSame(sp.vertex(waypoints[a]), subset.vertex(a));
+            for (int b = 0; b < waypoints.length; b++) {
+                assertEquals(sp.cost(waypoints[a], waypoints[b]), subset.cost(a, b));
+                List<Edge> full = new ArrayList<>();
+                List<Edge> local = new ArrayList<>();
+                sp.appendPath(waypoints[a], waypoints[b], full);
+                subset.appendPath(a, b, local);
+                assertEquals(full, local);
+            }
+        }
+    }
+
+    @Test
+    void batchToursVisitEveryWaypointAndRepeat() {
+        List<Vertex> vertices = new ArrayList<>();
+        for (int i = 0; i < sp.size(); i++) {
+            vertices.add(sp.vertex(i));
+        }
+        List<List<Vertex>> requests = List.of(
+                Arrays.asList(vertices.get(0), vertices.get(63)),
+                Arrays.asList(vertices.get(10), vertices.get(22), vertices.get(45), vertices.get(51)),
+                Arrays.asList(vertices.get(7), vertices.get(30), vertices.get(33), vertices.get(56), vertices.get(2), vertices.get(49)));
+
+        List<Tour> first;
+        List<Tour> second;
+        try (WaypointBatch batch = new WaypointBatch(sp, parameters(), 6)) {
+            first = batch.solve(requests, SolveLimits.iterations(5));
+        }
+        try (WaypointBatch batch = new WaypointBatch(sp, parameters(), 6)) {
+            second = batch.solve(requests, SolveLimits.iterations(5));
+        }
+
+        for (int r = 0; r < requests.size(); r++) {
+            Tour tour = first.get(r);
+            List<Vertex> visited = Arrays.asList(tour.getPath().vertices());
+            assertTrue(visited.containsAll(requests.get(r)), "request " + r);
+            assertEquals(tour.getLength(), tour.getPath().getLength(Metric.WALK_DISTANCE));
+            assertEquals(tour.getKeyVertices(), second.get(r).getKeyVertices());
+        }
+    }
+
+    @Test
+    void batchRejectsOneWaypoint() {
+        try (WaypointBatch batch = new WaypointBatch(sp, parameters(), 6)) {
+            assertThrows(IllegalArgumentException.class, () -> batch.submit(List.of(sp.vertex(0)), SolveLimits.iterations(1)));
+        }
+    }
+}